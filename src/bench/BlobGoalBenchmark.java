@@ -0,0 +1,83 @@
+package bench;
+
+import java.awt.*;
+import java.util.Random;
+
+import game.BlobGoal;
+import game.Block;
+import game.Game;
+
+/**
+ * Benchmark of the BlobGoal engines on random boards of increasing depth.
+ *
+ * Run the main method; it prints the mean time per score for each engine.
+ * FLOOD_FILL is reported as "overflow" where a blob is too large for its
+ * recursion. UNION_FIND is timed one move after a full build, which is how
+ * the game and the AI players use it.
+ */
+public class BlobGoalBenchmark {
+
+	private static final int WARMUP = 10;
+	private static final int ITERATIONS = 20;
+
+	public static void main(String[] args) {
+		System.out.println("=== BlobGoal engine benchmark (ms per score) ===\n");
+		System.out.printf("%-6s %12s %12s %12s %12s %12s%n", "depth", "FLOOD_FILL", "SCANLINE", "UNION_FIND", "QUADTREE",
+			"BITBOARD");
+
+		Random rand = new Random(42);
+		for (int depth = 4; depth <= 10; depth++) {
+			Block board = randomBoard(depth, rand);
+			System.out.printf("%-6d %12s %12s %12s %12s %12s%n", depth,
+				time(board, BlobGoal.Engine.FLOOD_FILL, rand),
+				time(board, BlobGoal.Engine.SCANLINE, rand),
+				time(board, BlobGoal.Engine.UNION_FIND, rand),
+				time(board, BlobGoal.Engine.QUADTREE, rand),
+				time(board, BlobGoal.Engine.BITBOARD, rand));
+		}
+	}
+
+	/**
+	 * Return a board of the given depth where each block is smashed with a
+	 * probability that falls with its level, so it has large uniform areas.
+	 */
+	private static Block randomBoard(int depth, Random rand) {
+		Block root = new Block(new Point(0, 0), depth, null, 1 << depth);
+		smashRandomly(root, rand);
+		return root;
+	}
+
+	private static void smashRandomly(Block b, Random rand) {
+		if (b.getLevel() == 0 || rand.nextDouble() < 0.85 - 0.05 * b.getLevel()) {
+			if (b.smash()) {
+				for (Block c : b.getChildren()) {
+					smashRandomly(c, rand);
+				}
+			}
+		}
+	}
+
+	private static String time(Block board, BlobGoal.Engine engine, Random rand) {
+		BlobGoal goal = new BlobGoal(Game.COLOR_LIST[0], engine);
+		try {
+			for (int i = 0; i < WARMUP; i++) {
+				goal.score(board);
+			}
+			long total = 0;
+			for (int i = 0; i < ITERATIONS; i++) {
+				// change one deep cell so UNION_FIND has a move to catch up on
+				int size = board.getSize();
+				Block cell = board.getSelectedBlock(rand.nextInt(size), rand.nextInt(size), board.getMaxDepth());
+				if (cell != null) {
+					cell.setColor(Game.COLOR_LIST[rand.nextInt(Game.COLOR_LIST.length)]);
+				}
+				long start = System.nanoTime();
+				goal.score(board);
+				total += System.nanoTime() - start;
+			}
+			return String.format("%.3f", total / 1e6 / ITERATIONS);
+		} catch (StackOverflowError e) {
+			return "overflow";
+		}
+	}
+}
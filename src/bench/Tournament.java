@@ -0,0 +1,424 @@
+package bench;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import game.GameEngine;
+import game.GameListener;
+import game.Goal;
+import game.MoveRecord;
+import game.Palette;
+import players.HumanPlayer;
+import players.Player;
+import players.SmartAI2;
+
+/**
+ * Plays many complete games between computer players, headless and in
+ * parallel, and writes one row per game (and optionally per move) as CSV or
+ * JSON Lines.
+ *
+ * Every combination of --depths, --turns and --mix is played --games times.
+ * The seats of a mix are rotated from game to game so no player always moves
+ * first. A player type is the simple name of a class in the players package
+ * (or a fully qualified class name) with a (int, GameEngine, Goal)
+ * constructor, so new players can be entered without changing this class.
+ * Goals are random, as in the game.
+ *
+ * When games are played in parallel (--threads above 1), each game gives
+ * its SmartAI2 seats a one-thread pool of its own instead of the common
+ * pool, so the games do not compete for the same cores and the think times
+ * stay comparable. With --threads 1, SmartAI2 uses the common pool as in
+ * the game.
+ *
+ * Every game's seed is drawn from the --seed master seed and written with
+ * its row, so the same options and seed play the same games (as far as
+ * time-budgeted players allow). One game is played again with --replay and
+ * its seed, its depth and turns, and its players as the --mix.
+ *
+ * Example:
+ *   java bench.Tournament --mix SmartAI,SmartAI2 --mix SimpleAI,SmartAI2
+ *       --depths 4,5 --turns 20 --games 500 --out games.csv --moves moves.csv
+ *
+ * A summary of wins per player type is printed to stderr at the end.
+ */
+public class Tournament {
+
+	private static final String USAGE = String.join("\n",
+		"Usage: java bench.Tournament [options]",
+		"  --mix A,B,...     players of one game, by class name; repeatable (default SmartAI,SmartAI2)",
+		"  --depths 3,4,...  board depths (default 4)",
+		"  --turns 10,20,... turns per game (default 20)",
+		"  --games N         games per combination (default 100)",
+		"  --threads N       games played at once (default: available processors); above 1,",
+		"                    SmartAI2 seats think on one thread each",
+		"  --budget MS       think time per move of time-budgeted players (default: theirs)",
+		"  --seed N          master seed the game seeds are drawn from (default: random)",
+		"  --replay SEED     play every game with this game seed (use the game's players as --mix)",
+		"  --format F        csv or jsonl (default: from --out, else csv)",
+		"  --out FILE        per-game results (default: stdout)",
+		"  --moves FILE      per-move results (default: not written)");
+
+	public static void main(String[] args) throws Exception {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+		Options options;
+		try {
+			options = Options.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		try (ResultWriter games = ResultWriter.open(options.out, options.format);
+				ResultWriter moves = options.moves == null ? null : ResultWriter.open(options.moves, options.format)) {
+			new Tournament(options, games, moves).run();
+		}
+	}
+
+	private final Options options;
+	private final ResultWriter games;
+	private final ResultWriter moves;
+	private final Map<String, Map<String, LongAdder>> wins = new ConcurrentHashMap<>();
+
+	private Tournament(Options options, ResultWriter games, ResultWriter moves) {
+		this.options = options;
+		this.games = games;
+		this.moves = moves;
+	}
+
+	private void run() throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(options.threads);
+		SplittableRandom seeds = new SplittableRandom(options.seed);
+		long start = System.nanoTime();
+		int total = 0;
+		for (List<String> mix : options.mixes) {
+			for (int depth : options.depths) {
+				for (int turns : options.turns) {
+					for (int i = 0; i < options.games; i++) {
+						int id = ++total;
+						long seed = options.replay != null ? options.replay : seeds.nextLong();
+						List<String> seats = rotate(mix, i);
+						pool.execute(() -> playGame(id, seed, seats, mix, depth, turns));
+					}
+				}
+			}
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+		System.err.printf("%d games in %.1f s (seed %d)%n", total, (System.nanoTime() - start) / 1e9, options.seed);
+		for (Map.Entry<String, Map<String, LongAdder>> config : wins.entrySet()) {
+			StringBuilder line = new StringBuilder(config.getKey()).append(':');
+			for (Map.Entry<String, LongAdder> type : config.getValue().entrySet()) {
+				line.append(' ').append(type.getKey()).append('=').append(type.getValue().sum());
+			}
+			System.err.println(line);
+		}
+	}
+
+	/**
+	 * Play one game and write its rows. A game that fails is reported on
+	 * stderr and skipped.
+	 */
+	private void playGame(int id, long seed, List<String> seats, List<String> mix, int depth, int turns) {
+		ForkJoinPool gamePool = options.threads > 1 ? new ForkJoinPool(1) : null;
+		try {
+			GameEngine engine = new GameEngine(depth, GameEngine.DEFAULT_BOARD_SIZE, turns, seed);
+			for (String type : seats) {
+				int playerId = engine.getPlayers().size() + 1;
+				Player player = newPlayer(type, playerId, engine);
+				if (gamePool != null && player instanceof SmartAI2 smart) {
+					smart.setPool(gamePool);
+				}
+				engine.addPlayer(player);
+			}
+			if (moves != null) {
+				engine.addListener(new MoveLog(id));
+			}
+
+			long start = System.nanoTime();
+			engine.playToEnd();
+			long millis = (System.nanoTime() - start) / 1_000_000;
+
+			List<String> types = new ArrayList<>();
+			List<String> goals = new ArrayList<>();
+			List<String> scores = new ArrayList<>();
+			for (Player p : engine.getPlayers()) {
+				types.add(p.getClass().getSimpleName());
+				Goal g = p.getGoal();
+				goals.add(g.getGoalName() + "/" + Palette.name(g.getTargetIndex()));
+				scores.add(String.valueOf(p.getScore()));
+			}
+			Player winner = engine.getWinner();
+
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("game", id);
+			row.put("seed", seed);
+			row.put("depth", depth);
+			row.put("turns", turns);
+			row.put("players", String.join(";", types));
+			row.put("goals", String.join(";", goals));
+			row.put("scores", String.join(";", scores));
+			row.put("winner", winner.getPlayerID());
+			row.put("winner_type", winner.getClass().getSimpleName());
+			row.put("winning_score", engine.getWinningScore());
+			row.put("millis", millis);
+			games.write(row);
+
+			String config = "depth=" + depth + " turns=" + turns + " mix=" + String.join(",", mix);
+			wins.computeIfAbsent(config, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(winner.getClass().getSimpleName(), k -> new LongAdder())
+				.increment();
+		} catch (RuntimeException | ReflectiveOperationException e) {
+			System.err.println("Game " + id + " failed: " + e);
+		} finally {
+			if (gamePool != null) {
+				gamePool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Return a new player of the given type, with a random goal.
+	 */
+	private Player newPlayer(String type, int id, GameEngine engine) throws ReflectiveOperationException {
+		Constructor<?> constructor = playerConstructor(type);
+		Player player = (Player)constructor.newInstance(id, engine, engine.randomGoal(id));
+		if (options.budget > 0) {
+			player.setBudgetMillis(options.budget);
+		}
+		return player;
+	}
+
+	/**
+	 * Return the (int, GameEngine, Goal) constructor of the given computer
+	 * player type.
+	 *
+	 * @throws IllegalArgumentException if there is no such player type
+	 */
+	private static Constructor<?> playerConstructor(String type) {
+		try {
+			Class<?> cls = Class.forName(type.contains(".") ? type : "players." + type);
+			if (!Player.class.isAssignableFrom(cls) || HumanPlayer.class.isAssignableFrom(cls)) {
+				throw new IllegalArgumentException(type + " is not a computer player");
+			}
+			return cls.getConstructor(int.class, GameEngine.class, Goal.class);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Unknown player type " + type);
+		}
+	}
+
+	private static List<String> rotate(List<String> mix, int by) {
+		List<String> seats = new ArrayList<>(mix.size());
+		for (int i = 0; i < mix.size(); i++) {
+			seats.add(mix.get((i + by) % mix.size()));
+		}
+		return seats;
+	}
+
+	/**
+	 * Writes a row for every move or pass of one game, with the time the
+	 * player took to choose it.
+	 */
+	private final class MoveLog implements GameListener {
+		private final int game;
+		private long turnStart;
+
+		private MoveLog(int game) {
+			this.game = game;
+		}
+
+		@Override
+		public void turnStarted(GameEngine engine, Player player) {
+			turnStart = System.nanoTime();
+		}
+
+		@Override
+		public void movePlayed(GameEngine engine, Player player, MoveRecord record) {
+			write(engine, player, record.getMove().getAction().name(), record.getMove().getPath().length);
+		}
+
+		@Override
+		public void turnPassed(GameEngine engine, Player player) {
+			write(engine, player, "PASS", -1);
+		}
+
+		private void write(GameEngine engine, Player player, String action, int level) {
+			double thinkMillis = (System.nanoTime() - turnStart) / 1e6;
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("game", game);
+			row.put("turn", engine.getTurnsPlayed() + 1);
+			row.put("player", player.getPlayerID());
+			row.put("type", player.getClass().getSimpleName());
+			row.put("action", action);
+			row.put("level", level);
+			row.put("think_ms", Math.round(thinkMillis * 1000) / 1000.0);
+			row.put("nodes", player.getLastNodes());
+			row.put("score", player.getScore());
+			moves.write(row);
+		}
+	}
+
+	// ===== Options =====
+
+	private static final class Options {
+		private final List<List<String>> mixes = new ArrayList<>();
+		private int[] depths = {4};
+		private int[] turns = {20};
+		private int games = 100;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private long budget = 0;
+		private long seed = new SplittableRandom().nextLong();
+		private Long replay;
+		private String format;
+		private String out;
+		private String moves;
+
+		private static Options parse(String[] args) {
+			Options o = new Options();
+			for (int i = 0; i < args.length; i++) {
+				String flag = args[i];
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + flag);
+				}
+				String value = args[++i];
+				try {
+					switch (flag) {
+						case "--mix" -> o.mixes.add(Arrays.asList(value.split(",")));
+						case "--depths" -> o.depths = ints(value);
+						case "--turns" -> o.turns = ints(value);
+						case "--games" -> o.games = Integer.parseInt(value);
+						case "--threads" -> o.threads = Integer.parseInt(value);
+						case "--budget" -> o.budget = Long.parseLong(value);
+						case "--seed" -> o.seed = Long.parseLong(value);
+						case "--replay" -> o.replay = Long.parseLong(value);
+						case "--format" -> o.format = value;
+						case "--out" -> o.out = value;
+						case "--moves" -> o.moves = value;
+						default -> throw new IllegalArgumentException("Unknown option " + flag);
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Not a number for " + flag + ": " + value);
+				}
+			}
+			if (o.mixes.isEmpty()) {
+				o.mixes.add(List.of("SmartAI", "SmartAI2"));
+			}
+			for (List<String> mix : o.mixes) {
+				mix.forEach(Tournament::playerConstructor);
+			}
+			if (o.format == null) {
+				o.format = o.out != null && o.out.endsWith(".jsonl") ? "jsonl" : "csv";
+			}
+			if (!o.format.equals("csv") && !o.format.equals("jsonl")) {
+				throw new IllegalArgumentException("Unknown format " + o.format);
+			}
+			if (o.games < 1 || o.threads < 1) {
+				throw new IllegalArgumentException("--games and --threads must be positive");
+			}
+			return o;
+		}
+
+		private static int[] ints(String value) {
+			return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+		}
+	}
+
+	// ===== Output =====
+
+	/**
+	 * Writes rows of named values as CSV (with a header before the first
+	 * row) or as JSON Lines. Rows are written whole and flushed, so several
+	 * games can write at once and partial results survive an interrupted
+	 * run.
+	 */
+	private static final class ResultWriter implements AutoCloseable {
+		private final PrintWriter out;
+		private final boolean json;
+		private final boolean closeOut;
+		private boolean headerWritten;
+
+		private ResultWriter(Writer out, boolean json, boolean closeOut) {
+			this.out = new PrintWriter(out);
+			this.json = json;
+			this.closeOut = closeOut;
+		}
+
+		private static ResultWriter open(String path, String format) throws IOException {
+			boolean json = format.equals("jsonl");
+			if (path == null || path.equals("-")) {
+				return new ResultWriter(new OutputStreamWriter(System.out), json, false);
+			}
+			return new ResultWriter(new FileWriter(path), json, true);
+		}
+
+		private synchronized void write(Map<String, Object> row) {
+			if (json) {
+				StringBuilder line = new StringBuilder("{");
+				for (Map.Entry<String, Object> e : row.entrySet()) {
+					if (line.length() > 1) {
+						line.append(',');
+					}
+					line.append('"').append(e.getKey()).append("\":");
+					Object v = e.getValue();
+					if (v instanceof Number) {
+						line.append(v);
+					} else {
+						line.append('"').append(escapeJson(String.valueOf(v))).append('"');
+					}
+				}
+				out.println(line.append('}'));
+			} else {
+				if (!headerWritten) {
+					out.println(String.join(",", row.keySet()));
+					headerWritten = true;
+				}
+				List<String> cells = new ArrayList<>();
+				for (Object v : row.values()) {
+					cells.add(escapeCsv(String.valueOf(v)));
+				}
+				out.println(String.join(",", cells));
+			}
+			out.flush();
+		}
+
+		private static String escapeJson(String s) {
+			return s.replace("\\", "\\\\").replace("\"", "\\\"");
+		}
+
+		private static String escapeCsv(String s) {
+			if (s.contains(",") || s.contains("\"")) {
+				return "\"" + s.replace("\"", "\"\"") + "\"";
+			}
+			return s;
+		}
+
+		@Override
+		public synchronized void close() {
+			out.flush();
+			if (closeOut) {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the AIThinker class, which runs computer players' moves
+ * off the Swing event dispatch thread.
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import players.Player;
+
+/**
+ * Runs Player.chooseMove on a thread of its own and hands the chosen move
+ * back to the event dispatch thread, so the window keeps painting while a
+ * player thinks.
+ *
+ * Each request thinks on a private copy of the board taken when it is made,
+ * so the game's board is never read off the event dispatch thread. Only one
+ * request is pending at a time: starting another or calling cancel
+ * interrupts the thinking thread and drops its move, even if that move has
+ * already been posted.
+ *
+ * With a Ponderer, a move the player pondered for the board is played
+ * instead of thinking again (see Ponderer.choose).
+ *
+ * An exception thrown by the player is not a move: it is handed to the
+ * request's error handler on the event dispatch thread instead.
+ *
+ * think and cancel are meant to be called on the event dispatch thread.
+ *
+ * === Representation Invariants ===
+ * - generation counts the requests started or cancelled; a move is delivered
+ *   only if its request's generation is still current when it arrives
+ */
+public final class AIThinker {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "blocky-ai");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Ponderer ponderer;
+	private Future<?> pending;
+	private long generation;
+
+	public AIThinker() {
+		this(null);
+	}
+
+	/**
+	 * Create a thinker that plays moves pondered by the given Ponderer, or
+	 * always thinks from scratch if it is null.
+	 */
+	public AIThinker(Ponderer ponderer) {
+		this.ponderer = ponderer;
+	}
+
+	/**
+	 * Start the given player thinking about a snapshot of board. When it has
+	 * chosen, onMove is run on the event dispatch thread with the move (null
+	 * if it found none), or onError with what the player threw, unless this
+	 * request has been cancelled by then.
+	 */
+	public synchronized void think(Player player, Block board, Consumer<Move> onMove,
+		Consumer<RuntimeException> onError) {
+		cancel();
+		long request = generation;
+		Block snapshot = board.copyBlock(board);
+		pending = executor.submit(() -> {
+			Runnable result;
+			try {
+				Move move = ponderer == null ? player.chooseMove(snapshot) : ponderer.choose(player, snapshot);
+				result = () -> onMove.accept(move);
+			} catch (RuntimeException e) {
+				result = () -> onError.accept(e);
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			Runnable deliver = result;
+			SwingUtilities.invokeLater(() -> deliver(request, deliver));
+		});
+	}
+
+	/**
+	 * Stop the pending request, if any. Its move will not be delivered.
+	 */
+	public synchronized void cancel() {
+		generation++;
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Return whether a request has been started and its move not yet
+	 * delivered or cancelled.
+	 */
+	public synchronized boolean isThinking() {
+		return pending != null;
+	}
+
+	/**
+	 * Cancel the pending request and stop the thinking thread.
+	 */
+	public synchronized void shutdown() {
+		cancel();
+		executor.shutdownNow();
+	}
+
+	private void deliver(long request, Runnable result) {
+		synchronized (this) {
+			if (request != generation) {
+				return;
+			}
+			pending = null;
+		}
+		result.run();
+	}
+}
@@ -12,6 +12,21 @@ public enum Action {
 	TURN_CCW,
 	UNDO;
 
+	/**
+	 * Return the action that exactly undoes this one, or null if there is
+	 * none. Smash and unsmash lose information (the new children's colours,
+	 * or the removed subtree), so they have to be undone from a saved copy.
+	 */
+	public Action inverse() {
+		return switch (this) {
+			case SWAP_VERTICALLY -> SWAP_VERTICALLY;
+			case SWAP_HORIZONTALLY -> SWAP_HORIZONTALLY;
+			case TURN_CW -> TURN_CCW;
+			case TURN_CCW -> TURN_CW;
+			default -> null;
+		};
+	}
+
 	public boolean runAction(Block b) {
 		if (b == null) {
 			return false;
@@ -27,4 +42,20 @@ public enum Action {
 			case UNDO -> false;
 		};
 	}
+
+	public boolean runAction(FlatBlock b) {
+		if (b == null) {
+			return false;
+		}
+
+		return switch (this) {
+			case SMASH -> b.smash();
+			case UNSMASH -> b.unsmash();
+			case SWAP_VERTICALLY -> b.swap(true);
+			case SWAP_HORIZONTALLY -> b.swap(false);
+			case TURN_CW -> b.rotate(true);
+			case TURN_CCW -> b.rotate(false);
+			case UNDO -> false;
+		};
+	}
 }
@@ -0,0 +1,358 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the BitBoard class, a view of a flattened board as one
+ * bitset per colour.
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only view of a board as one bitset per colour, so that goals can be
+ * scored with word operations instead of cell-by-cell comparisons.
+ *
+ * === Representation ===
+ * The board is n x n unit cells. Row r takes wordsPerRow consecutive longs,
+ * starting at r * wordsPerRow; column c of the row is bit c % 64 of word
+ * c / 64. Rows narrower than 64 cells use the low n bits of one word.
+ *
+ * planes[c]:
+ * The cells whose Palette.indexOf is c, or null if there are none.
+ *
+ * === Representation Invariants ===
+ * - n is a power of two
+ * - no bit outside a row's low n bits is set
+ * - no cell is set in more than one plane
+ */
+public final class BitBoard {
+
+	// Edge and diagonal masks, shared by all boards of the same size.
+	private static final Map<Integer, Masks> MASKS = new ConcurrentHashMap<>();
+
+	private final int n;
+	private final int wordsPerRow;
+	private final long rowMask;
+	private final long[][] planes = new long[Byte.MAX_VALUE][];
+
+	private BitBoard(int n) {
+		this.n = n;
+		this.wordsPerRow = Math.max(1, n >>> 6);
+		this.rowMask = n >= 64 ? -1L : (1L << n) - 1;
+	}
+
+	/**
+	 * Return the bitboard of the given block, filled from its leaves without
+	 * flattening it.
+	 */
+	public static BitBoard of(Block board) {
+		BitBoard bits = new BitBoard(1 << (board.getMaxDepth() - board.getLevel()));
+		bits.fill(board, 0, 0, bits.n);
+		return bits;
+	}
+
+	public static BitBoard of(FlatBoard board) {
+		BitBoard bits = new BitBoard(1 << board.getMaxDepth());
+		bits.fill(board, 0, 0, 0, 0, bits.n);
+		return bits;
+	}
+
+	/**
+	 * Return the bitboard of a grid of colour indices (see
+	 * Block.flattenIndices). Negative indices are left out of every plane.
+	 */
+	public static BitBoard of(byte[][] grid) {
+		BitBoard bits = new BitBoard(grid.length);
+		for (int row = 0; row < grid.length; row++) {
+			for (int col = 0; col < grid.length; col++) {
+				if (grid[row][col] >= 0) {
+					bits.fillRect(grid[row][col], row, col, 1);
+				}
+			}
+		}
+		return bits;
+	}
+
+	private void fill(Block b, int row, int col, int size) {
+		if (!b.hasChildren()) {
+			if (b.getColorIndex() >= 0) {
+				fillRect(b.getColorIndex(), row, col, size);
+			}
+			return;
+		}
+		int half = size / 2;
+		Block[] children = b.getChildren();
+		for (int q = 0; q < 4; q++) {
+			fill(children[q], row + (q >= 2 ? half : 0), col + (q == 0 || q == 3 ? half : 0), half);
+		}
+	}
+
+	private void fill(FlatBoard board, int level, int start, int row, int col, int size) {
+		if (!board.hasChildren(level, start)) {
+			fillRect(board.colorIndexAt(start), row, col, size);
+			return;
+		}
+		int half = size / 2;
+		int span = board.span(level + 1);
+		for (int q = 0; q < 4; q++) {
+			fill(board, level + 1, start + q * span, row + (q >= 2 ? half : 0),
+				col + (q == 0 || q == 3 ? half : 0), half);
+		}
+	}
+
+	/**
+	 * Set the square of the given size at (row, col) in colour c's plane.
+	 * Squares come from the quadtree, so one never straddles a word boundary
+	 * unless it covers whole words.
+	 */
+	private void fillRect(byte c, int row, int col, int size) {
+		if (planes[c] == null) {
+			planes[c] = new long[n * wordsPerRow];
+		}
+		long[] plane = planes[c];
+		for (int r = row; r < row + size; r++) {
+			int base = r * wordsPerRow;
+			if (size >= 64) {
+				Arrays.fill(plane, base + (col >>> 6), base + ((col + size) >>> 6), -1L);
+			} else {
+				plane[base + (col >>> 6)] |= ((1L << size) - 1) << (col & 63);
+			}
+		}
+	}
+
+	// ===== Getters =====
+
+	/**
+	 * Return the width of the board in unit cells.
+	 */
+	public int getSize() {
+		return n;
+	}
+
+	/**
+	 * Return the number of cells of the given colour index.
+	 */
+	public int count(byte c) {
+		long[] plane = plane(c);
+		int count = 0;
+		if (plane != null) {
+			for (long w : plane) {
+				count += Long.bitCount(w);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the colour index of every cell, as Block.flattenIndices would.
+	 * Cells in no plane are -1.
+	 */
+	public byte[][] toIndices() {
+		byte[][] grid = new byte[n][n];
+		for (byte[] row : grid) {
+			Arrays.fill(row, (byte)-1);
+		}
+		for (byte c = 0; c < planes.length; c++) {
+			long[] plane = planes[c];
+			if (plane == null) {
+				continue;
+			}
+			for (int i = 0; i < plane.length; i++) {
+				for (long w = plane[i]; w != 0; w &= w - 1) {
+					int col = ((i % wordsPerRow) << 6) + Long.numberOfTrailingZeros(w);
+					grid[i / wordsPerRow][col] = c;
+				}
+			}
+		}
+		return grid;
+	}
+
+	private long[] plane(byte c) {
+		return c < 0 ? null : planes[c];
+	}
+
+	// ===== Scoring =====
+
+	/**
+	 * Return the number of cells of colour c on the edge of the board, with
+	 * corners counted twice (see PerimeterGoal).
+	 */
+	public int perimeter(byte c) {
+		long[] plane = plane(c);
+		if (plane == null) {
+			return 0;
+		}
+		if (n == 1) {
+			return 6; // as PerimeterGoal.score(byte[][]) counts a lone cell
+		}
+		return popcountAnd(plane, masks().edges)
+			+ popcountAnd(plane, masks().corners);
+	}
+
+	/**
+	 * Return the number of cells of colour c on the main diagonal plus the
+	 * number on the anti-diagonal (see DiagonalGoal).
+	 */
+	public int diagonals(byte c) {
+		long[] plane = plane(c);
+		if (plane == null) {
+			return 0;
+		}
+		return popcountAnd(plane, masks().main) + popcountAnd(plane, masks().anti);
+	}
+
+	/**
+	 * Return the size of the largest connected blob of colour c.
+	 *
+	 * Each blob is grown from one of its cells by dilation: shift the blob one
+	 * cell in every direction and mask with the plane. Rows are updated in
+	 * place, sweeping down and then up, and each word is widened to the whole
+	 * runs it touches, so a blob is usually complete after a few sweeps. Only
+	 * the rows the blob can reach are visited. Cells of a finished blob are
+	 * removed from the unexplored set before the next blob is started.
+	 */
+	public int largestBlob(byte c) {
+		long[] plane = plane(c);
+		if (plane == null) {
+			return 0;
+		}
+		long[] unexplored = plane.clone();
+		long[] blob = new long[plane.length];
+		int largest = 0;
+
+		int i = 0;
+		while (i < unexplored.length) {
+			if (unexplored[i] == 0) {
+				i++;
+				continue;
+			}
+			blob[i] = Long.lowestOneBit(unexplored[i]);
+			int top = i / wordsPerRow;
+			int bottom = top;
+
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (int r = Math.max(0, top - 1); r <= Math.min(n - 1, bottom + 1); r++) {
+					if (growRow(blob, plane, r)) {
+						changed = true;
+						top = Math.min(top, r);
+						bottom = Math.max(bottom, r);
+					}
+				}
+				for (int r = Math.min(n - 1, bottom + 1); r >= Math.max(0, top - 1); r--) {
+					if (growRow(blob, plane, r)) {
+						changed = true;
+						top = Math.min(top, r);
+						bottom = Math.max(bottom, r);
+					}
+				}
+			}
+
+			int size = 0;
+			for (int w = top * wordsPerRow; w < (bottom + 1) * wordsPerRow; w++) {
+				size += Long.bitCount(blob[w]);
+				unexplored[w] &= ~blob[w];
+				blob[w] = 0;
+			}
+			largest = Math.max(largest, size);
+		}
+		return largest;
+	}
+
+	/**
+	 * Add to row r of blob every cell of plane that touches the blob, and
+	 * return whether the row grew.
+	 */
+	private boolean growRow(long[] blob, long[] plane, int r) {
+		boolean grew = false;
+		int base = r * wordsPerRow;
+		for (int k = 0; k < wordsPerRow; k++) {
+			int w = base + k;
+			long x = blob[w];
+			// neighbours in the same row, carrying across words
+			long g = x | (x << 1) | (x >>> 1);
+			if (k > 0) {
+				g |= blob[w - 1] >>> 63;
+			}
+			if (k + 1 < wordsPerRow) {
+				g |= blob[w + 1] << 63;
+			}
+			// neighbours in the rows above and below
+			if (r > 0) {
+				g |= blob[w - wordsPerRow];
+			}
+			if (r + 1 < n) {
+				g |= blob[w + wordsPerRow];
+			}
+			g &= rowMask & plane[w];
+			// widen to the whole runs of the plane the word now touches
+			long prev;
+			do {
+				prev = g;
+				g = (g | (g << 1) | (g >>> 1)) & rowMask & plane[w];
+			} while (g != prev);
+			if (g != x) {
+				blob[w] = g;
+				grew = true;
+			}
+		}
+		return grew;
+	}
+
+	private static int popcountAnd(long[] plane, long[] mask) {
+		int count = 0;
+		for (int i = 0; i < plane.length; i++) {
+			count += Long.bitCount(plane[i] & mask[i]);
+		}
+		return count;
+	}
+
+	private Masks masks() {
+		return MASKS.computeIfAbsent(n, size -> new Masks(this));
+	}
+
+	/**
+	 * The cell masks used by the scoring methods for boards of one size.
+	 *
+	 * edges: every cell on the edge of the board.
+	 * corners: the four corner cells, so that edges + corners counts each
+	 * corner twice.
+	 * main, anti: the cells on each diagonal.
+	 */
+	private static final class Masks {
+		private final long[] edges;
+		private final long[] corners;
+		private final long[] main;
+		private final long[] anti;
+
+		private Masks(BitBoard shape) {
+			int n = shape.n;
+			int length = n * shape.wordsPerRow;
+			edges = new long[length];
+			corners = new long[length];
+			main = new long[length];
+			anti = new long[length];
+			for (int r = 0; r < n; r++) {
+				if (r == 0 || r == n - 1) {
+					for (int k = 0; k < shape.wordsPerRow; k++) {
+						edges[r * shape.wordsPerRow + k] = shape.rowMask;
+					}
+					set(shape, corners, r, 0);
+					set(shape, corners, r, n - 1);
+				}
+				set(shape, edges, r, 0);
+				set(shape, edges, r, n - 1);
+				set(shape, main, r, r);
+				set(shape, anti, r, n - 1 - r);
+			}
+		}
+
+		private static void set(BitBoard shape, long[] mask, int row, int col) {
+			mask[row * shape.wordsPerRow + (col >>> 6)] |= 1L << (col & 63);
+		}
+	}
+}
@@ -1,31 +1,120 @@
 package game;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 public class BlobGoal extends Goal {
 
+	/**
+	 * The algorithms BlobGoal can score a Block board with.
+	 *
+	 * FLOOD_FILL:
+	 * Flatten the board and flood fill recursively from every cell. Recurses
+	 * once per cell of a blob, so large blobs on deep boards overflow the
+	 * stack; kept as the reference implementation.
+	 *
+	 * SCANLINE:
+	 * Flatten the board and fill whole row runs at a time, using an explicit
+	 * stack and a visited bitset reused between calls. Stack-safe at any depth.
+	 *
+	 * UNION_FIND:
+	 * Keep a BlobTracker per board and only update the components touched by
+	 * each move, so repeated scoring of a board between moves is a lookup.
+	 * Grids that do not come from a Block are scored with SCANLINE.
+	 *
+	 * QUADTREE:
+	 * Join neighbouring leaves of the target colour along their shared edges,
+	 * weighting each leaf by its area (see QuadtreeBlobs). Never flattens, so
+	 * the cost grows with the number of leaves rather than 4^max_depth; best
+	 * for coarse boards at high depth. Grids are scored with SCANLINE.
+	 *
+	 * BITBOARD:
+	 * Build a BitBoard of the board and grow each blob by shift-and-mask
+	 * dilation of the target colour's bitset, 64 cells per word operation.
+	 * Grids are scored with SCANLINE.
+	 */
+	public enum Engine {
+		FLOOD_FILL,
+		SCANLINE,
+		UNION_FIND,
+		QUADTREE,
+		BITBOARD
+	}
+
+	// Per-thread scratch space for the scanline fill.
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	// QUADTREE suits the AIs, which score a board once after each trial move
+	// and revert it; UNION_FIND would take apart and rebuild the components
+	// around every trial twice.
+	private static Engine defaultEngine = Engine.QUADTREE;
+
+	private Engine engine;
+
 	public BlobGoal(Color targetColor) {
+		this(targetColor, defaultEngine);
+	}
+
+	public BlobGoal(Color targetColor, Engine engine) {
 		super(targetColor);
+		this.engine = engine;
+	}
+
+	public static void setDefaultEngine(Engine engine) {
+		defaultEngine = engine;
+	}
+
+	public Engine getEngine() {
+		return engine;
+	}
+
+	public void setEngine(Engine engine) {
+		this.engine = engine;
 	}
 
 	@Override
 	public int score(Block board) {
-		if (board == null || getTargetColor() == null) {
+		if (engine == Engine.UNION_FIND && board != null && board.getLevel() == 0
+			&& getTargetColor() != null) {
+			return BlobTracker.of(board).largest(board, getTargetIndex());
+		}
+		if (engine == Engine.QUADTREE && board != null && getTargetColor() != null) {
+			return QuadtreeBlobs.largest(board, getTargetIndex());
+		}
+		if (engine == Engine.BITBOARD && board != null && getTargetColor() != null) {
+			return BitBoard.of(board).largestBlob(getTargetIndex());
+		}
+		// All other engines score the flattened grid (see score(byte[][])).
+		return super.score(board);
+	}
+
+	@Override
+	public int score(byte[][] grid) {
+		if (grid.length == 0) {
 			return 0;
 		}
+		return engine == Engine.FLOOD_FILL ? floodFillScore(grid) : scanlineScore(grid);
+	}
 
-		Color[][] grid = board.flatten();
-		int n = grid.length;
-		if (n == 0) {
+	@Override
+	public int score(BitBoard board) {
+		if (board == null || getTargetColor() == null) {
 			return 0;
 		}
+		return board.largestBlob(getTargetIndex());
+	}
+
+	// ===== FLOOD_FILL =====
 
+	private int floodFillScore(byte[][] grid) {
+		int n = grid.length;
 		boolean[][] visited = new boolean[n][n];
 		int maxSize = 0;
+		byte target = getTargetIndex();
 
 		for (int x = 0; x < n; x++) {
 			for (int y = 0; y < n; y++) {
-				int size = blobSizeFrom(grid, visited, x, y, getTargetColor());
+				int size = blobSizeFrom(grid, visited, x, y, target);
 				if (size > maxSize) {
 					maxSize = size;
 				}
@@ -35,10 +124,10 @@ public class BlobGoal extends Goal {
 		return maxSize;
 	}
 
-	private int blobSizeFrom(Color[][] grid,
+	private int blobSizeFrom(byte[][] grid,
 		boolean[][] visited,
 		int x, int y,
-		Color targetColor) {
+		byte targetColor) {
 
 		int n = grid.length;
 
@@ -50,7 +139,7 @@ public class BlobGoal extends Goal {
 			return 0;
 		}
 
-		if (!grid[x][y].equals(targetColor)) {
+		if (grid[x][y] != targetColor) {
 			return 0;
 		}
 
@@ -65,6 +154,102 @@ public class BlobGoal extends Goal {
 		return size;
 	}
 
+	// ===== SCANLINE =====
+
+	private static final class Scratch {
+		private long[] visited = new long[0];
+		private int[] stack = new int[64];
+	}
+
+	private int scanlineScore(byte[][] grid) {
+		int n = grid.length;
+		byte target = getTargetIndex();
+		Scratch scratch = SCRATCH.get();
+		int words = (n * n + 63) >>> 6;
+		if (scratch.visited.length < words) {
+			scratch.visited = new long[words];
+		} else {
+			Arrays.fill(scratch.visited, 0, words, 0L);
+		}
+
+		int maxSize = 0;
+		for (int row = 0; row < n; row++) {
+			byte[] line = grid[row];
+			for (int col = 0; col < n; col++) {
+				if (line[col] == target && !isVisited(scratch.visited, row * n + col)) {
+					int size = scanlineFill(grid, scratch, row, col, target);
+					if (size > maxSize) {
+						maxSize = size;
+					}
+				}
+			}
+		}
+		return maxSize;
+	}
+
+	/**
+	 * Fill the blob containing (row, col) and return its size. Each popped
+	 * seed is widened to its whole unvisited run of the row, and one seed is
+	 * pushed for every run of fillable cells directly above and below it.
+	 */
+	private static int scanlineFill(byte[][] grid, Scratch scratch, int row, int col, byte target) {
+		int n = grid.length;
+		long[] visited = scratch.visited;
+		int[] stack = scratch.stack;
+		int top = 0;
+		int size = 0;
+
+		// seeds are packed as row << 16 | col
+		stack[top++] = row << 16 | col;
+		while (top > 0) {
+			int seed = stack[--top];
+			int r = seed >>> 16;
+			int c = seed & 0xFFFF;
+			if (isVisited(visited, r * n + c)) {
+				continue;
+			}
+
+			byte[] line = grid[r];
+			int left = c;
+			while (left > 0 && line[left - 1] == target && !isVisited(visited, r * n + left - 1)) {
+				left--;
+			}
+			int right = c;
+			while (right + 1 < n && line[right + 1] == target && !isVisited(visited, r * n + right + 1)) {
+				right++;
+			}
+			for (int x = left; x <= right; x++) {
+				int i = r * n + x;
+				visited[i >>> 6] |= 1L << i;
+			}
+			size += right - left + 1;
+
+			for (int nr = r - 1; nr <= r + 1; nr += 2) {
+				if (nr < 0 || nr >= n) {
+					continue;
+				}
+				byte[] adjacent = grid[nr];
+				boolean inRun = false;
+				for (int x = left; x <= right; x++) {
+					boolean fillable = adjacent[x] == target && !isVisited(visited, nr * n + x);
+					if (fillable && !inRun) {
+						if (top == stack.length) {
+							stack = Arrays.copyOf(stack, stack.length * 2);
+							scratch.stack = stack;
+						}
+						stack[top++] = nr << 16 | x;
+					}
+					inRun = fillable;
+				}
+			}
+		}
+		return size;
+	}
+
+	private static boolean isVisited(long[] visited, int i) {
+		return (visited[i >>> 6] & (1L << i)) != 0;
+	}
+
 	@Override
 	public String goalDescription() {
 		return "Blob goal: create the largest connected blob of the target colour.";
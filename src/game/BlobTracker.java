@@ -0,0 +1,257 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the BlobTracker class, which keeps the connected blobs of
+ * a board up to date as the board changes.
+ */
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * The connected components of every colour of one board, kept in a
+ * union-find structure and updated incrementally.
+ *
+ * After a move, only the components that touch the changed block's region
+ * are taken apart and re-joined; every other component is left alone. The
+ * size of the largest blob of each colour is then a lookup.
+ *
+ * === Representation ===
+ * Cells are numbered row * n + col.
+ *
+ * cells[i]:
+ * The colour index of cell i when the tracker was last synced.
+ *
+ * parent[i], size[i]:
+ * The union-find forest; size is only meaningful for roots.
+ *
+ * next[i]:
+ * The next cell of the same component, in a circular list, so that the
+ * members of a component can be visited without scanning the board.
+ *
+ * sizes[c]:
+ * A multiset (size -> count) of the sizes of the components of colour c.
+ */
+public final class BlobTracker {
+
+	private static final Map<Block, BlobTracker> TRACKERS =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
+	private int n;
+	private byte[] cells;
+	private int[] parent;
+	private int[] size;
+	private int[] next;
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final TreeMap<Integer, Integer>[] sizes = new TreeMap[Byte.MAX_VALUE];
+
+	// Scratch space for update(), reused between moves.
+	private int[] stamp;
+	private int epoch;
+	private int[] members = new int[16];
+
+	private long version = -1;
+
+	private BlobTracker() {
+	}
+
+	/**
+	 * Return the tracker of the board with the given root, creating it the
+	 * first time. Trackers do not keep their board alive.
+	 */
+	public static BlobTracker of(Block root) {
+		return TRACKERS.computeIfAbsent(root, b -> new BlobTracker());
+	}
+
+	/**
+	 * Bring this tracker up to date with the given board and return the number
+	 * of unit cells in its largest blob of the given colour index.
+	 */
+	public synchronized int largest(Block root, byte colorIndex) {
+		sync(root);
+		if (colorIndex < 0 || sizes[colorIndex] == null || sizes[colorIndex].isEmpty()) {
+			return 0;
+		}
+		return sizes[colorIndex].lastKey();
+	}
+
+	private void sync(Block root) {
+		long current = root.getVersion();
+		if (current == version && cells != null) {
+			return;
+		}
+
+		Rectangle[] changed = cells == null ? null : root.getChangedCellsSince(version);
+		byte[][] grid = root.flattenIndices();
+		if (changed == null || grid.length != n) {
+			rebuild(grid);
+		} else {
+			for (Rectangle r : changed) {
+				update(grid, r);
+			}
+		}
+		version = current;
+	}
+
+	// ===== Full rebuild =====
+
+	private void rebuild(byte[][] grid) {
+		n = grid.length;
+		int total = n * n;
+		cells = new byte[total];
+		parent = new int[total];
+		size = new int[total];
+		next = new int[total];
+		stamp = new int[total];
+		Arrays.fill(sizes, null);
+
+		for (int row = 0; row < n; row++) {
+			System.arraycopy(grid[row], 0, cells, row * n, n);
+		}
+		for (int i = 0; i < total; i++) {
+			parent[i] = i;
+			size[i] = 1;
+			next[i] = i;
+		}
+		for (int i = 0; i < total; i++) {
+			if (i % n + 1 < n && cells[i + 1] == cells[i]) {
+				link(i, i + 1);
+			}
+			if (i + n < total && cells[i + n] == cells[i]) {
+				link(i, i + n);
+			}
+		}
+		for (int i = 0; i < total; i++) {
+			if (parent[i] == i) {
+				addSize(cells[i], size[i]);
+			}
+		}
+	}
+
+	// ===== Incremental update =====
+
+	/**
+	 * Re-read the cells of the given region: take apart every component that
+	 * touches it, then join the freed cells with their neighbours again.
+	 */
+	private void update(byte[][] grid, Rectangle r) {
+		epoch++;
+		int count = 0;
+
+		for (int row = r.y; row < r.y + r.height; row++) {
+			for (int col = r.x; col < r.x + r.width; col++) {
+				int root = find(row * n + col);
+				if (stamp[root] == epoch) {
+					continue;
+				}
+				stamp[root] = epoch;
+				removeSize(cells[root], size[root]);
+				int m = root;
+				do {
+					if (count == members.length) {
+						members = Arrays.copyOf(members, count * 2);
+					}
+					members[count++] = m;
+					m = next[m];
+				} while (m != root);
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			int m = members[i];
+			parent[m] = m;
+			size[m] = 1;
+			next[m] = m;
+		}
+		for (int row = r.y; row < r.y + r.height; row++) {
+			System.arraycopy(grid[row], r.x, cells, row * n + r.x, r.width);
+		}
+		for (int i = 0; i < count; i++) {
+			addSize(cells[members[i]], 1);
+		}
+
+		for (int i = 0; i < count; i++) {
+			int m = members[i];
+			int col = m % n;
+			if (col > 0 && cells[m - 1] == cells[m]) {
+				union(m, m - 1);
+			}
+			if (col + 1 < n && cells[m + 1] == cells[m]) {
+				union(m, m + 1);
+			}
+			if (m >= n && cells[m - n] == cells[m]) {
+				union(m, m - n);
+			}
+			if (m + n < cells.length && cells[m + n] == cells[m]) {
+				union(m, m + n);
+			}
+		}
+	}
+
+	// ===== Union-find =====
+
+	private int find(int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Join the components of a and b, keeping sizes up to date.
+	 */
+	private void union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return;
+		}
+		removeSize(cells[ra], size[ra]);
+		removeSize(cells[rb], size[rb]);
+		int root = link(ra, rb);
+		addSize(cells[root], size[root]);
+	}
+
+	/**
+	 * Join the components of a and b without touching sizes, and return the
+	 * new root.
+	 */
+	private int link(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return ra;
+		}
+		if (size[ra] < size[rb]) {
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		parent[rb] = ra;
+		size[ra] += size[rb];
+
+		// splice the two circular member lists
+		int t = next[ra];
+		next[ra] = next[rb];
+		next[rb] = t;
+		return ra;
+	}
+
+	private void addSize(byte color, int s) {
+		if (sizes[color] == null) {
+			sizes[color] = new TreeMap<>();
+		}
+		sizes[color].merge(s, 1, Integer::sum);
+	}
+
+	private void removeSize(byte color, int s) {
+		sizes[color].computeIfPresent(s, (k, c) -> c == 1 ? null : c - 1);
+	}
+}
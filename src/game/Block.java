@@ -6,9 +6,10 @@ This file contains the Block class, the main data structure used in the game.
  */
 
 import java.awt.*;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * A square block in the Blocky game.
@@ -45,6 +46,25 @@ import java.util.Random;
  * parent:
  * The block that this block is directly within.
  *
+ * dirty:
+ * True iff this Block's cells have changed since the root's cached index
+ * grid was last refreshed, so its whole region must be re-flattened.
+ *
+ * dirtyBelow:
+ * True iff some descendant of this Block is dirty.
+ *
+ * region:
+ * The index of this Block among the 4^level blocks of its level, in child
+ * order (its Morton index, as in FlatBoard).
+ *
+ * hash:
+ * The XOR of the Zobrist keys of all leaves of this Block. The root's hash
+ * is the hash of the whole board.
+ *
+ * random:
+ * The generator every random colour of this board is drawn from. It
+ * belongs to the root and is shared by all of its descendants.
+ *
  * === Representation Invariations ===
  * - len(children) == 0 or len(children) == 4
  * - If this Block has children,
@@ -69,7 +89,27 @@ public class Block {
 	private int max_depth;
 
 	private Color color;
-	private Game game;
+	// Palette.indexOf(color), kept alongside color so flattening never looks it up.
+	private byte colorIndex;
+
+	// Incremental flattening (see flattenIndices). Only the root keeps a grid.
+	private boolean dirty = true;
+	private boolean dirtyBelow;
+	private byte[][] cachedGrid;
+	private long version;
+
+	// Zobrist hashing (see Zobrist). Updated by every move, never recomputed
+	// for the whole board.
+	private int region;
+	private long hash;
+
+	private final SplittableRandom random;
+
+	// Root only: the last CHANGE_LOG changed blocks, indexed by version, so
+	// incremental consumers (e.g. BlobTracker) can catch up on a board.
+	private static final int CHANGE_LOG = 64;
+	private int[] changedLevels;
+	private int[] changedRegions;
 
 	/**
 	 * Constructor for a Block
@@ -80,8 +120,30 @@ public class Block {
 	 * @param maxSize   is the maxSize of the board (used only for root)
 	 */
 	public Block(Point p, int max_depth, Block parent, int maxSize) {
+		this(p, max_depth, parent, maxSize, parent == null ? new SplittableRandom() : parent.random);
+	}
+
+	/**
+	 * Constructor for a top-level Block whose random colours, its own and
+	 * those of every block smashed from it, are drawn from the given
+	 * generator. Boards built from equally seeded generators and played with
+	 * the same moves are identical.
+	 */
+	public Block(Point p, int max_depth, Block parent, int maxSize, SplittableRandom random) {
+		this(p, max_depth, parent, maxSize, random, null);
+		this.color = randomColor();
+		this.colorIndex = Palette.indexOf(color);
+		this.hash = Zobrist.key(level, region, colorIndex);
+	}
+
+	/**
+	 * Create a Block of the given colour, or with no colour yet if it is
+	 * null, without drawing any randomness.
+	 */
+	private Block(Point p, int max_depth, Block parent, int maxSize, SplittableRandom random, Color color) {
 		this.max_depth = max_depth;
 		this.parent = parent;
+		this.random = random;
 
 		if (parent == null) {
 			this.level = 0;
@@ -93,12 +155,13 @@ public class Block {
 		}
 
 		this.children = new Block[0];
-		this.color = randomColor();
+		this.color = color;
+		this.colorIndex = Palette.indexOf(color);
+		this.hash = Zobrist.key(level, region, colorIndex);
 	}
 
 	private Color randomColor() {
-		Color[] palette = game.getColorList();
-		return palette[new Random().nextInt(palette.length)];
+		return Palette.color(random.nextInt(Palette.size()));
 	}
 
 	public boolean hasChildren() {
@@ -151,6 +214,7 @@ public class Block {
 		}
 
 		updateBlockLocations();
+		markDirty();
 		return true;
 	}
 
@@ -164,8 +228,19 @@ public class Block {
 			return false;
 		}
 
+		rotateChildren(isClockwise);
+		updateBlockLocations();
+		markDirty();
+		return true;
+	}
+
+	private void rotateChildren(boolean isClockwise) {
+		if (!hasChildren()) {
+			return;
+		}
+
 		for (Block c : children) {
-			c.rotate(isClockwise);
+			c.rotateChildren(isClockwise);
 		}
 
 		// 0=UR, 1=UL, 2=LL, 3=LR
@@ -184,9 +259,6 @@ public class Block {
 			children[2] = ul; // new LL
 			children[3] = ll; // new LR
 		}
-
-		updateBlockLocations();
-		return true;
 	}
 
 	/**
@@ -195,6 +267,14 @@ public class Block {
 	 * A Block can be smashed iff it has no children and level < max_depth.
 	 */
 	public boolean smash() {
+		return smash(random);
+	}
+
+	/**
+	 * Smash this block, drawing its children's colours from the given
+	 * generator instead of the board's.
+	 */
+	public boolean smash(SplittableRandom colours) {
 		if (hasChildren()) {
 			return false;
 		}
@@ -202,16 +282,58 @@ public class Block {
 			return false;
 		}
 
+		smashChildren();
+		for (Block c : children) {
+			c.color = Palette.color(colours.nextInt(Palette.size()));
+			c.colorIndex = Palette.indexOf(c.color);
+		}
+
+		this.color = null;
+		this.colorIndex = -1;
+		markDirty();
+		return true;
+	}
+
+	/**
+	 * Give this Block four children with no colour yet.
+	 */
+	private void smashChildren() {
 		int half = rect.width / 2;
 		children = new Block[4];
 
-		children[0] = new Block(new Point(rect.x + half, rect.y), max_depth, this, half);          // UR
-		children[1] = new Block(new Point(rect.x, rect.y), max_depth, this, half);                 // UL
-		children[2] = new Block(new Point(rect.x, rect.y + half), max_depth, this, half);          // LL
-		children[3] = new Block(new Point(rect.x + half, rect.y + half), max_depth, this, half);   // LR
+		children[0] = new Block(new Point(rect.x + half, rect.y), max_depth, this, half, random, null);          // UR
+		children[1] = new Block(new Point(rect.x, rect.y), max_depth, this, half, random, null);                 // UL
+		children[2] = new Block(new Point(rect.x, rect.y + half), max_depth, this, half, random, null);          // LL
+		children[3] = new Block(new Point(rect.x + half, rect.y + half), max_depth, this, half, random, null);   // LR
 
-		this.color = null;
-		return true;
+		for (int q = 0; q < 4; q++) {
+			children[q].region = region * 4 + q;
+		}
+	}
+
+	/**
+	 * Colour this leaf's subtree at random in one pass, smashing each block
+	 * with the probability profile gives for its level, and rehash it once
+	 * at the end. See BoardGenerator.
+	 */
+	void generate(BoardGenerator.Profile profile) {
+		fillRandomly(profile);
+		markDirty();
+	}
+
+	private void fillRandomly(BoardGenerator.Profile profile) {
+		if (level < max_depth && random.nextDouble() < profile.smashProbability(level)) {
+			smashChildren();
+			color = null;
+			colorIndex = -1;
+			for (Block c : children) {
+				c.fillRandomly(profile);
+			}
+		} else {
+			children = new Block[0];
+			color = randomColor();
+			colorIndex = Palette.indexOf(color);
+		}
 	}
 
 	/**
@@ -230,8 +352,9 @@ public class Block {
 		children[2].rect = new Rectangle(rect.x, rect.y + half, half, half);           // LL
 		children[3].rect = new Rectangle(rect.x + half, rect.y + half, half, half);    // LR
 
-		for (Block c : children) {
-			c.updateBlockLocations();
+		for (int q = 0; q < 4; q++) {
+			children[q].region = region * 4 + q;
+			children[q].updateBlockLocations();
 		}
 	}
 
@@ -286,6 +409,155 @@ public class Block {
 		}
 	}
 
+	/**
+	 * Return a two-dimensional array of Palette indices representing this
+	 * Block as rows and columns of unit cells, laid out the same way as
+	 * flatten(). Colours outside the palette get the indices assigned by
+	 * Palette.indexOf.
+	 */
+	public byte[][] flattenIndices() {
+		int n = 1 << (max_depth - level);
+		if (parent != null) {
+			byte[][] grid = new byte[n][n];
+			fillIndices(grid, 0, 0, n, false);
+			return grid;
+		}
+
+		// The root keeps its grid and only re-flattens dirty regions.
+		// The returned grid is shared and must not be modified by callers.
+		if (cachedGrid == null || cachedGrid.length != n) {
+			cachedGrid = new byte[n][n];
+			dirty = true;
+		}
+		refreshIndices(cachedGrid, 0, 0, n);
+		return cachedGrid;
+	}
+
+	private void refreshIndices(byte[][] grid, int col, int row, int size) {
+		if (dirty) {
+			fillIndices(grid, col, row, size, true);
+		} else if (dirtyBelow) {
+			dirtyBelow = false;
+			int half = size / 2;
+			children[1].refreshIndices(grid, col, row, half);              // UL
+			children[0].refreshIndices(grid, col + half, row, half);       // UR
+			children[2].refreshIndices(grid, col, row + half, half);       // LL
+			children[3].refreshIndices(grid, col + half, row + half, half);// LR
+		}
+	}
+
+	private void fillIndices(byte[][] grid, int col, int row, int size, boolean clean) {
+		if (clean) {
+			dirty = false;
+			dirtyBelow = false;
+		}
+		if (!hasChildren()) {
+			for (int j = row; j < row + size; j++) {
+				Arrays.fill(grid[j], col, col + size, colorIndex);
+			}
+		} else {
+			int half = size / 2;
+			children[1].fillIndices(grid, col, row, half, clean);              // UL
+			children[0].fillIndices(grid, col + half, row, half, clean);       // UR
+			children[2].fillIndices(grid, col, row + half, half, clean);       // LL
+			children[3].fillIndices(grid, col + half, row + half, half, clean);// LR
+		}
+	}
+
+	/**
+	 * Record that this Block's cells have changed: mark it dirty, rehash it,
+	 * mark every ancestor as having a dirty descendant, fold the change of
+	 * hash into every ancestor, and bump the root's version.
+	 *
+	 * Costs O(size of this subtree + depth).
+	 */
+	private void markDirty() {
+		dirty = true;
+		long delta = hash ^ rehash();
+		Block b = this;
+		while (b.parent != null) {
+			b = b.parent;
+			b.dirtyBelow = true;
+			b.hash ^= delta;
+		}
+		if (b.changedLevels == null) {
+			b.changedLevels = new int[CHANGE_LOG];
+			b.changedRegions = new int[CHANGE_LOG];
+		}
+		b.changedLevels[(int)(b.version % CHANGE_LOG)] = level;
+		b.changedRegions[(int)(b.version % CHANGE_LOG)] = region;
+		b.version++;
+	}
+
+	private long rehash() {
+		if (!hasChildren()) {
+			hash = Zobrist.key(level, region, colorIndex);
+		} else {
+			long h = 0;
+			for (Block c : children) {
+				h ^= c.rehash();
+			}
+			hash = h;
+		}
+		return hash;
+	}
+
+	/**
+	 * Return the Zobrist hash of this Block's subtree. For the root, this is
+	 * the hash of the whole board: equal boards have equal hashes, and
+	 * different boards almost never do.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Return the number of changes made to the board containing this Block.
+	 * It increases on every smash, unsmash, swap, rotate and setColor, so two
+	 * equal versions mean the board has not changed in between.
+	 */
+	public long getVersion() {
+		Block b = this;
+		while (b.parent != null) {
+			b = b.parent;
+		}
+		return b.version;
+	}
+
+	/**
+	 * Return the regions, in unit cells (column, row and size), of the blocks
+	 * changed on this board since it was at the given version. Return null if
+	 * that version is too old to be known, in which case the caller should
+	 * re-read the whole board.
+	 */
+	public Rectangle[] getChangedCellsSince(long since) {
+		Block root = this;
+		while (root.parent != null) {
+			root = root.parent;
+		}
+		long count = root.version - since;
+		if (count < 0 || count > CHANGE_LOG) {
+			return null;
+		}
+
+		Rectangle[] changed = new Rectangle[(int)count];
+		for (int i = 0; i < count; i++) {
+			int at = (int)((since + i) % CHANGE_LOG);
+			int changedLevel = root.changedLevels[at];
+			int changedRegion = root.changedRegions[at];
+			int col = 0;
+			int row = 0;
+			for (int l = changedLevel - 1; l >= 0; l--) {
+				int q = (changedRegion >> (2 * l)) & 3;
+				col = (col << 1) | (q == 0 || q == 3 ? 1 : 0);
+				row = (row << 1) | (q >= 2 ? 1 : 0);
+			}
+			int scale = 1 << (max_depth - changedLevel);
+			changed[i] = new Rectangle(col * scale, row * scale, scale, scale);
+		}
+		return changed;
+	}
+
 	// ===== Getters / Setters =====
 
 	public Rectangle getRect() {
@@ -312,8 +584,18 @@ public class Block {
 		return children;
 	}
 
+	public Block getParent() {
+		return parent;
+	}
+
+	public byte getColorIndex() {
+		return colorIndex;
+	}
+
 	public void setColor(Color c) {
 		this.color = c;
+		this.colorIndex = Palette.indexOf(c);
+		markDirty();
 	}
 
 	public void setPoint(Point p) {
@@ -323,15 +605,26 @@ public class Block {
 
 	// ===== Deep copy & restore (SmartAI / SmartAI2 용) =====
 
+	/**
+	 * Return a deep copy of b as a top-level block. The copy draws its random
+	 * colours from a generator seeded by b's hash, so copying takes no
+	 * randomness from b's board, and a copy of the same board always smashes
+	 * the same way.
+	 */
 	public Block copyBlock(Block b) {
 		Block copy = new Block(
 			new Point(b.rect.x, b.rect.y),
 			b.max_depth,
 			null,
-			b.rect.width
+			b.rect.width,
+			new SplittableRandom(b.hash),
+			b.color
 		);
 		copy.level = b.level;
 		copy.color = b.color;
+		copy.colorIndex = b.colorIndex;
+		copy.region = b.region;
+		copy.hash = b.hash;
 
 		if (b.hasChildren()) {
 			copy.children = new Block[4];
@@ -347,11 +640,16 @@ public class Block {
 			new Point(original.rect.x, original.rect.y),
 			parentCopy.max_depth,
 			parentCopy,
-			original.rect.width
+			original.rect.width,
+			parentCopy.random,
+			original.color
 		);
 
 		newB.level = original.level;
 		newB.color = original.color;
+		newB.colorIndex = original.colorIndex;
+		newB.region = original.region;
+		newB.hash = original.hash;
 
 		if (original.hasChildren()) {
 			newB.children = new Block[4];
@@ -383,7 +681,68 @@ public class Block {
 		}
 
 		children = new Block[0];
-		this.color = chosen;
+		setColor(chosen); // marks this Block dirty
 		return true;
 	}
+
+	// ===== Paths & snapshots (undo history) =====
+
+	/**
+	 * Return the child indices leading from the root of this board to this
+	 * Block. Moves never change a Block's own path.
+	 */
+	public int[] getPath() {
+		int[] path = new int[level];
+		Block b = this;
+		for (int i = level - 1; i >= 0; i--) {
+			Block[] siblings = b.parent.children;
+			for (int q = 0; q < 4; q++) {
+				if (siblings[q] == b) {
+					path[i] = q;
+				}
+			}
+			b = b.parent;
+		}
+		return path;
+	}
+
+	/**
+	 * Return the descendant of this Block reached by following the given
+	 * child indices, or null if the path leaves the tree.
+	 */
+	public Block getDescendant(int[] path) {
+		Block b = this;
+		for (int q : path) {
+			if (!b.hasChildren()) {
+				return null;
+			}
+			b = b.children[q];
+		}
+		return b;
+	}
+
+	/**
+	 * Replace this Block's colour and descendants with those of the given
+	 * snapshot.
+	 */
+	public void restore(BoardSnapshot s) {
+		restoreSubtree(s);
+		markDirty();
+	}
+
+	private void restoreSubtree(BoardSnapshot s) {
+		if (!s.hasChildren()) {
+			children = new Block[0];
+			color = Palette.colorAt(s.getColorIndex());
+			colorIndex = s.getColorIndex();
+			return;
+		}
+
+		smashChildren();
+		color = null;
+		colorIndex = -1;
+		for (int q = 0; q < 4; q++) {
+			children[q].restoreSubtree(s.getChild(q));
+		}
+	}
 }
@@ -0,0 +1,79 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the BoardGenerator class, which builds random boards
+ * from a seed.
+ */
+
+import java.awt.Point;
+import java.util.SplittableRandom;
+
+/**
+ * Builds random Blocky boards in one pass.
+ *
+ * Every block is smashed with the probability its Profile gives for its
+ * level, and every leaf is given a random colour; the board is hashed and
+ * flattened once at the end rather than after every smash. All randomness
+ * comes from the given SplittableRandom, so a board is reproduced exactly by
+ * generating it again from an equally seeded generator.
+ */
+public final class BoardGenerator {
+
+	/**
+	 * How likely a block is to be smashed, by its level.
+	 */
+	@FunctionalInterface
+	public interface Profile {
+
+		/**
+		 * Return the probability, 0 to 1, that a block at the given level is
+		 * smashed. Blocks at the board's maximum depth are never smashed.
+		 */
+		double smashProbability(int level);
+	}
+
+	/**
+	 * The original board: the root is smashed once and its four children
+	 * are left as random leaves.
+	 */
+	public static final Profile CLASSIC = levels(1.0);
+
+	private BoardGenerator() {
+	}
+
+	/**
+	 * Return a profile smashing a block at level i with probability
+	 * probabilities[i]. Deeper blocks are never smashed.
+	 */
+	public static Profile levels(double... probabilities) {
+		double[] p = probabilities.clone();
+		return level -> level < p.length ? p[level] : 0.0;
+	}
+
+	/**
+	 * Return a profile smashing the root with probability first, and every
+	 * level below with step less than the level above it.
+	 */
+	public static Profile decay(double first, double step) {
+		return level -> Math.max(0.0, first - step * level);
+	}
+
+	/**
+	 * Return a new random board of the given depth and size in pixels.
+	 */
+	public static Block generate(int maxDepth, int size, Profile profile, SplittableRandom random) {
+		Block board = new Block(new Point(0, 0), maxDepth, null, size, random);
+		board.generate(profile);
+		return board;
+	}
+
+	/**
+	 * Return a new random board of the given depth and size in pixels, built
+	 * from the given seed.
+	 */
+	public static Block generate(int maxDepth, int size, Profile profile, long seed) {
+		return generate(maxDepth, size, profile, new SplittableRandom(seed));
+	}
+}
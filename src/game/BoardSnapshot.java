@@ -0,0 +1,103 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the BoardSnapshot class, a copy of the shape and
+ * colours of a Block subtree, kept to undo smashes and unsmashes.
+ */
+
+import java.awt.*;
+
+/**
+ * A copy of the shape and colours of a Block and its descendants, taken
+ * before a move changes them.
+ *
+ * Most moves are undone by running their inverse action; a smash or unsmash
+ * has none, so its MoveRecord keeps a snapshot of the subtree it replaces
+ * and restores it on revert (see Block.restore). A snapshot node stores only
+ * a colour index (for a leaf) or four child snapshots, with no position or
+ * level, so it can be restored into any block. It is a plain copy: taking
+ * one walks the whole subtree and shares nothing with other snapshots
+ * except the leaves, which are interned per colour.
+ *
+ * === Representation Invariants ===
+ * - children == null, or children.length == 4 and it is never modified
+ * - colorIndex == -1 iff children != null
+ */
+public final class BoardSnapshot {
+
+	private static final BoardSnapshot[] LEAVES = new BoardSnapshot[Byte.MAX_VALUE];
+
+	static {
+		for (int i = 0; i < LEAVES.length; i++) {
+			LEAVES[i] = new BoardSnapshot((byte)i, null);
+		}
+	}
+
+	private final byte colorIndex;
+	private final BoardSnapshot[] children;
+
+	private BoardSnapshot(byte colorIndex, BoardSnapshot[] children) {
+		this.colorIndex = colorIndex;
+		this.children = children;
+	}
+
+	/**
+	 * Return the leaf snapshot of the given colour index.
+	 */
+	public static BoardSnapshot leaf(byte colorIndex) {
+		return LEAVES[colorIndex];
+	}
+
+	/**
+	 * Return a snapshot of the given Block and all its descendants.
+	 */
+	public static BoardSnapshot of(Block b) {
+		if (!b.hasChildren()) {
+			return leaf(b.getColorIndex());
+		}
+		BoardSnapshot[] copy = new BoardSnapshot[4];
+		Block[] blocks = b.getChildren();
+		for (int q = 0; q < 4; q++) {
+			copy[q] = of(blocks[q]);
+		}
+		return new BoardSnapshot((byte)-1, copy);
+	}
+
+	public boolean hasChildren() {
+		return children != null;
+	}
+
+	public byte getColorIndex() {
+		return colorIndex;
+	}
+
+	public BoardSnapshot getChild(int quadrant) {
+		return children[quadrant];
+	}
+
+	/**
+	 * Return the descendant reached by following the given child indices.
+	 */
+	public BoardSnapshot get(int[] path) {
+		BoardSnapshot s = this;
+		for (int q : path) {
+			s = s.children[q];
+		}
+		return s;
+	}
+
+	/**
+	 * Return a new Block tree with the structure and colours of this snapshot.
+	 *
+	 * @param p         is the location of the board (x,y)
+	 * @param max_depth is the depth limit for the board
+	 * @param maxSize   is the size of the board in pixels
+	 */
+	public Block toBlock(Point p, int max_depth, int maxSize) {
+		Block root = new Block(p, max_depth, null, maxSize);
+		root.restore(this);
+		return root;
+	}
+}
@@ -0,0 +1,57 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the CopyableRandom class, a seeded generator whose
+ * state can be copied.
+ */
+
+import java.util.Random;
+
+/**
+ * A Random whose state can be copied, so a search can be tried on a copy and
+ * the original left exactly where it was (see Player.ponderCopy).
+ *
+ * It produces the SplitMix64 sequence of its seed, the generator behind
+ * SplittableRandom. Unlike Random it is not safe to share between threads
+ * without locking.
+ *
+ * === Representation Invariants ===
+ * - state is the SplitMix64 state; every value drawn advances it once
+ */
+public final class CopyableRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private long state;
+
+	public CopyableRandom(long seed) {
+		super(seed);
+	}
+
+	private CopyableRandom(CopyableRandom other) {
+		this.state = other.state;
+	}
+
+	/**
+	 * Return a generator that will produce the same values as this one.
+	 */
+	public CopyableRandom copy() {
+		return new CopyableRandom(this);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed);
+		state = seed;
+	}
+
+	@Override
+	protected int next(int bits) {
+		long z = state += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (int)((z ^ (z >>> 31)) >>> (64 - bits));
+	}
+}
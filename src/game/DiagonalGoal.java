@@ -7,17 +7,111 @@ public class DiagonalGoal extends Goal {
 		super(targetColor);
 	}
 
+	/**
+	 * Score the board on its tree, descending only into blocks that cross
+	 * one of the diagonals. A leaf contributes the number of its unit cells
+	 * on each diagonal.
+	 */
 	@Override
 	public int score(Block board) {
-		Color[][] g = board.flatten();
+		if (board == null || getTargetColor() == null) {
+			return 0;
+		}
+		int n = 1 << (board.getMaxDepth() - board.getLevel());
+		return diagonalScore(board, 0, 0, n, n);
+	}
+
+	/**
+	 * Only cells on a diagonal count.
+	 */
+	@Override
+	protected boolean touchesRegion(int row, int col, int size, int n) {
+		return cellsOnDiagonals(row, col, size, n) != 0;
+	}
+
+	/**
+	 * The diagonal cells of block, rescanned on the tree.
+	 */
+	@Override
+	protected int regionScore(Block board, Block block, int row, int col, int size, int n) {
+		return diagonalScore(block, row, col, size, n);
+	}
+
+	@Override
+	public int score(FlatBoard board) {
+		if (board == null || getTargetColor() == null) {
+			return 0;
+		}
+		int n = 1 << board.getMaxDepth();
+		return diagonalScore(board, 0, 0, 0, 0, n, n);
+	}
+
+	private int diagonalScore(Block b, int row, int col, int size, int n) {
+		int cells = cellsOnDiagonals(row, col, size, n);
+		if (cells == 0) {
+			return 0;
+		}
+		if (!b.hasChildren()) {
+			return b.getColorIndex() == getTargetIndex() ? cells : 0;
+		}
+		int half = size / 2;
+		Block[] children = b.getChildren();
+		int score = 0;
+		for (int q = 0; q < 4; q++) {
+			score += diagonalScore(children[q], row + (q >= 2 ? half : 0),
+				col + (q == 0 || q == 3 ? half : 0), half, n);
+		}
+		return score;
+	}
+
+	private int diagonalScore(FlatBoard board, int level, int start, int row, int col, int size, int n) {
+		int cells = cellsOnDiagonals(row, col, size, n);
+		if (cells == 0) {
+			return 0;
+		}
+		if (!board.hasChildren(level, start)) {
+			return board.colorIndexAt(start) == getTargetIndex() ? cells : 0;
+		}
+		int half = size / 2;
+		int span = board.span(level + 1);
+		int score = 0;
+		for (int q = 0; q < 4; q++) {
+			score += diagonalScore(board, level + 1, start + q * span, row + (q >= 2 ? half : 0),
+				col + (q == 0 || q == 3 ? half : 0), half, n);
+		}
+		return score;
+	}
+
+	/**
+	 * Return how many cells of the square of the given size at (row, col) lie
+	 * on the main diagonal plus how many lie on the anti-diagonal of an n x n
+	 * board.
+	 */
+	private static int cellsOnDiagonals(int row, int col, int size, int n) {
+		// main: row == col; anti: row == n - 1 - col
+		int main = Math.min(row, col) + size - Math.max(row, col);
+		int anti = Math.min(row + size, n - col) - Math.max(row, n - col - size);
+		return Math.max(0, main) + Math.max(0, anti);
+	}
+
+	@Override
+	public int score(BitBoard board) {
+		if (board == null || getTargetColor() == null) {
+			return 0;
+		}
+		return board.diagonals(getTargetIndex());
+	}
+
+	@Override
+	public int score(byte[][] g) {
 		int n = g.length;
 		int score = 0;
-		Color t = getTargetColor();
+		byte t = getTargetIndex();
 
 		for (int i = 0; i < n; i++) {
-			if (g[i][i].equals(t))
+			if (g[i][i] == t)
 				score++; // Main diagonal
-			if (g[i][n - i - 1].equals(t))
+			if (g[i][n - i - 1] == t)
 				score++; // Anti-diagonal
 		}
 		return score;
@@ -0,0 +1,102 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the FlatBlock class, a lightweight handle on one block of
+ * a FlatBoard.
+ */
+
+import java.awt.*;
+
+/**
+ * A view of a single block of a FlatBoard, identified by its level and the
+ * index of its first unit cell. It offers the same moves as Block and is only
+ * valid while the structure above it is unchanged.
+ */
+public class FlatBlock {
+
+	private final FlatBoard board;
+	private final int level;
+	private final int start;
+
+	FlatBlock(FlatBoard board, int level, int start) {
+		this.board = board;
+		this.level = level;
+		this.start = start;
+	}
+
+	public boolean hasChildren() {
+		return board.hasChildren(level, start);
+	}
+
+	public boolean smash() {
+		return board.smash(level, start);
+	}
+
+	public boolean unsmash() {
+		return board.unsmash(level, start);
+	}
+
+	public boolean swap(boolean isVertical) {
+		return board.swap(level, start, isVertical);
+	}
+
+	public boolean rotate(boolean isClockwise) {
+		return board.rotate(level, start, isClockwise);
+	}
+
+	/**
+	 * Return a copy of this block's cells. Smash and unsmash have no inverse
+	 * action, so a search saves the block before running one and puts it
+	 * back with restoreCells; only this block's range is copied.
+	 */
+	public byte[] saveCells() {
+		return board.saveCells(level, start);
+	}
+
+	/**
+	 * Put back the cells saveCells returned for this block.
+	 */
+	public void restoreCells(byte[] saved) {
+		board.restoreCells(level, start, saved);
+	}
+
+	// ===== Getters / Setters =====
+
+	public FlatBlock[] getChildren() {
+		if (!hasChildren()) {
+			return new FlatBlock[0];
+		}
+		int quarter = board.span(level) / 4;
+		FlatBlock[] children = new FlatBlock[4];
+		for (int q = 0; q < 4; q++) {
+			children[q] = new FlatBlock(board, level + 1, start + q * quarter);
+		}
+		return children;
+	}
+
+	public Rectangle getRect() {
+		return board.rectOf(level, start);
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	public int getMaxDepth() {
+		return board.getMaxDepth();
+	}
+
+	public Color getColor() {
+		return board.colorOf(level, start);
+	}
+
+	public void setColor(Color c) {
+		board.setColor(level, start, c);
+	}
+
+	public FlatBoard getBoard() {
+		return board;
+	}
+}
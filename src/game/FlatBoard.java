@@ -0,0 +1,497 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the FlatBoard class, an array-based board engine that
+ * supports the same moves as the Block tree.
+ */
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A Blocky board stored as two flat byte arrays instead of a tree of Blocks.
+ *
+ * === Representation ===
+ * Unit cells are stored in Morton (Z-order) layout, using the same quadrant
+ * order as Block's children (UR, UL, LL, LR). The base-4 digits of a cell's
+ * index are therefore the child indices on the path from the root to it, and
+ * every block in the tree owns one contiguous range of cells: a block at
+ * level k that starts at index s covers [s, s + 4^(max_depth - k)).
+ *
+ * colors[i]:
+ * The Palette.indexOf of the colour of unit cell i.
+ *
+ * levels[i]:
+ * The level of the leaf block that contains unit cell i. A block at level k
+ * starting at s is a leaf iff levels[s] == k, and has children iff
+ * levels[s] > k.
+ *
+ * hash:
+ * The Zobrist hash of the board (see Zobrist), updated by every move from
+ * the index range it touched.
+ *
+ * Rotating or swapping a block only permutes its own index range, and copying
+ * a board is two array clones.
+ *
+ * === Representation Invariants ===
+ * - colors.length == levels.length == 4^max_depth
+ * - every leaf range is uniform in both colors and levels
+ */
+public class FlatBoard {
+
+	// Child order permutations: new[q] = old[SRC[q]].
+	private static final int[] CW = {1, 2, 3, 0};
+	private static final int[] CCW = {3, 0, 1, 2};
+	private static final int[] VERTICAL = {3, 2, 1, 0};
+	private static final int[] HORIZONTAL = {1, 0, 3, 2};
+
+	private final int max_depth;
+	private final Rectangle rect;
+	private final SplittableRandom random;
+
+	private byte[] colors;
+	private byte[] levels;
+	private long hash;
+
+	/**
+	 * Create an unsmashed board of a single random colour.
+	 *
+	 * @param p         is the location of the board (x,y)
+	 * @param max_depth is the depth limit for this game
+	 * @param maxSize   is the size of the board in pixels
+	 */
+	public FlatBoard(Point p, int max_depth, int maxSize) {
+		this(p, max_depth, maxSize, new SplittableRandom());
+	}
+
+	/**
+	 * Create an unsmashed board of a single random colour, drawing this and
+	 * every later random colour from the given generator.
+	 */
+	public FlatBoard(Point p, int max_depth, int maxSize, SplittableRandom random) {
+		this.max_depth = max_depth;
+		this.rect = new Rectangle(p.x, p.y, maxSize, maxSize);
+		this.random = random;
+		this.colors = new byte[1 << (2 * max_depth)];
+		this.levels = new byte[colors.length];
+		Arrays.fill(colors, randomColor());
+		this.hash = hashOf(0, 0);
+	}
+
+	private FlatBoard(FlatBoard other) {
+		this.max_depth = other.max_depth;
+		this.rect = new Rectangle(other.rect);
+		this.random = new SplittableRandom(other.hash);
+		this.colors = other.colors.clone();
+		this.levels = other.levels.clone();
+		this.hash = other.hash;
+	}
+
+	/**
+	 * Return a FlatBoard holding the same structure and colours as the given
+	 * Block and all its descendants.
+	 */
+	public static FlatBoard fromBlock(Block b) {
+		Rectangle r = b.getRect();
+		FlatBoard flat = new FlatBoard(new Point(r.x, r.y), b.getMaxDepth() - b.getLevel(), r.width,
+			new SplittableRandom(b.getHash()));
+		flat.copyFrom(b, 0, 0);
+		flat.hash = flat.hashOf(0, 0);
+		return flat;
+	}
+
+	private void copyFrom(Block b, int start, int level) {
+		int len = span(level);
+		if (!b.hasChildren()) {
+			Arrays.fill(colors, start, start + len, b.getColorIndex());
+			Arrays.fill(levels, start, start + len, (byte)level);
+		} else {
+			int quarter = len / 4;
+			Block[] children = b.getChildren();
+			for (int q = 0; q < 4; q++) {
+				copyFrom(children[q], start + q * quarter, level + 1);
+			}
+		}
+	}
+
+	/**
+	 * Return a Block tree holding the same structure and colours as this board.
+	 */
+	public Block toBlock() {
+		Block root = new Block(new Point(rect.x, rect.y), max_depth, null, rect.width, new SplittableRandom(hash));
+		copyTo(root, 0, 0);
+		return root;
+	}
+
+	private void copyTo(Block b, int start, int level) {
+		if (levels[start] == level) {
+			b.setColor(Palette.colorAt(colors[start]));
+			return;
+		}
+		b.smash();
+		int quarter = span(level) / 4;
+		Block[] children = b.getChildren();
+		for (int q = 0; q < 4; q++) {
+			copyTo(children[q], start + q * quarter, level + 1);
+		}
+	}
+
+	/**
+	 * Return a deep copy of this board.
+	 */
+	public FlatBoard copy() {
+		return new FlatBoard(this);
+	}
+
+	/**
+	 * Make target a copy of this board without allocating, and return it. If
+	 * target is null or has a different depth or rectangle, return a new copy
+	 * instead. Lets searches reuse one scratch board per thread.
+	 */
+	public FlatBoard copyInto(FlatBoard target) {
+		if (target == null || target.max_depth != max_depth || !target.rect.equals(rect)) {
+			return copy();
+		}
+		System.arraycopy(colors, 0, target.colors, 0, colors.length);
+		System.arraycopy(levels, 0, target.levels, 0, levels.length);
+		target.hash = hash;
+		return target;
+	}
+
+	// ===== Geometry =====
+
+	/**
+	 * Return the number of unit cells covered by a block at the given level.
+	 */
+	int span(int level) {
+		return 1 << (2 * (max_depth - level));
+	}
+
+	/**
+	 * Return the pixel rectangle of the block at the given level and start
+	 * index, using the same halving as Block.updateBlockLocations.
+	 */
+	Rectangle rectOf(int level, int start) {
+		int x = rect.x;
+		int y = rect.y;
+		int size = rect.width;
+		for (int l = 0; l < level; l++) {
+			int half = size / 2;
+			int q = (start / span(l + 1)) & 3;
+			if (q == 0 || q == 3) {
+				x += half;
+			}
+			if (q == 2 || q == 3) {
+				y += half;
+			}
+			size = half;
+		}
+		return new Rectangle(x, y, size, size);
+	}
+
+	/**
+	 * Return the block that includes the given location and is at the given
+	 * level, or null if there is none.
+	 */
+	public FlatBlock getSelectedBlock(int x, int y, int level) {
+		if (level < 0 || level > max_depth || !rect.contains(x, y)) {
+			return null;
+		}
+
+		int bx = rect.x;
+		int by = rect.y;
+		int size = rect.width;
+		int start = 0;
+
+		for (int l = 0; l < level; l++) {
+			if (levels[start] == l) {
+				return null;
+			}
+			int half = size / 2;
+			boolean right = x >= bx + half;
+			boolean lower = y >= by + half;
+			int q = lower ? (right ? 3 : 2) : (right ? 0 : 1);
+			if (right) {
+				bx += half;
+			}
+			if (lower) {
+				by += half;
+			}
+			if (x >= bx + half || y >= by + half) {
+				return null;
+			}
+			size = half;
+			start += q * span(l + 1);
+		}
+		return new FlatBlock(this, level, start);
+	}
+
+	// ===== Block operations (level / start addressing) =====
+
+	boolean hasChildren(int level, int start) {
+		return levels[start] > level;
+	}
+
+	Color colorOf(int level, int start) {
+		return hasChildren(level, start) ? null : Palette.colorAt(colors[start]);
+	}
+
+	/**
+	 * Return the Palette.indexOf of the unit cell at the given index.
+	 */
+	byte colorIndexAt(int index) {
+		return colors[index];
+	}
+
+	void setColor(int level, int start, Color c) {
+		if (hasChildren(level, start)) {
+			return;
+		}
+		long before = hashOf(level, start);
+		Arrays.fill(colors, start, start + span(level), Palette.indexOf(c));
+		hash ^= before ^ hashOf(level, start);
+	}
+
+	boolean smash(int level, int start) {
+		if (hasChildren(level, start) || level >= max_depth) {
+			return false;
+		}
+		long before = hashOf(level, start);
+		int len = span(level);
+		int quarter = len / 4;
+		Arrays.fill(levels, start, start + len, (byte)(level + 1));
+		for (int q = 0; q < 4; q++) {
+			int from = start + q * quarter;
+			Arrays.fill(colors, from, from + quarter, randomColor());
+		}
+		hash ^= before ^ hashOf(level, start);
+		return true;
+	}
+
+	boolean unsmash(int level, int start) {
+		if (!hasChildren(level, start)) {
+			return false;
+		}
+
+		int quarter = span(level) / 4;
+		int[] count = new int[Byte.MAX_VALUE];
+		for (int q = 0; q < 4; q++) {
+			int from = start + q * quarter;
+			if (levels[from] == level + 1) {
+				count[colors[from]]++;
+			}
+		}
+
+		int chosen = -1;
+		int max = 0;
+		for (int i = 0; i < count.length; i++) {
+			if (count[i] > max) {
+				chosen = i;
+				max = count[i];
+			}
+		}
+		byte color = chosen >= 0 ? (byte)chosen : Palette.indexOf(Color.GRAY); // fallback
+
+		long before = hashOf(level, start);
+		Arrays.fill(colors, start, start + 4 * quarter, color);
+		Arrays.fill(levels, start, start + 4 * quarter, (byte)level);
+		hash ^= before ^ hashOf(level, start);
+		return true;
+	}
+
+	boolean swap(int level, int start, boolean isVertical) {
+		if (!hasChildren(level, start)) {
+			return false;
+		}
+		long before = hashOf(level, start);
+		permuteQuarters(start, span(level), isVertical ? VERTICAL : HORIZONTAL, new byte[span(level)]);
+		hash ^= before ^ hashOf(level, start);
+		return true;
+	}
+
+	boolean rotate(int level, int start, boolean isClockwise) {
+		if (!hasChildren(level, start)) {
+			return false;
+		}
+		// Permuting a uniform leaf range is a no-op, so the whole subtree can be
+		// rotated digit by digit without looking at its structure.
+		long before = hashOf(level, start);
+		rotateRange(start, span(level), isClockwise ? CW : CCW, new byte[span(level)]);
+		hash ^= before ^ hashOf(level, start);
+		return true;
+	}
+
+	/**
+	 * Return a copy of the cells of the block at the given level and start
+	 * index, its colours followed by its levels, for restoreCells.
+	 */
+	byte[] saveCells(int level, int start) {
+		int len = span(level);
+		byte[] saved = new byte[2 * len];
+		System.arraycopy(colors, start, saved, 0, len);
+		System.arraycopy(levels, start, saved, len, len);
+		return saved;
+	}
+
+	/**
+	 * Put back the cells saveCells returned for the block at the given level
+	 * and start index.
+	 */
+	void restoreCells(int level, int start, byte[] saved) {
+		int len = span(level);
+		long before = hashOf(level, start);
+		System.arraycopy(saved, 0, colors, start, len);
+		System.arraycopy(saved, len, levels, start, len);
+		hash ^= before ^ hashOf(level, start);
+	}
+
+	private void rotateRange(int start, int len, int[] src, byte[] scratch) {
+		if (len == 1) {
+			return;
+		}
+		int quarter = len / 4;
+		for (int q = 0; q < 4; q++) {
+			rotateRange(start + q * quarter, quarter, src, scratch);
+		}
+		permuteQuarters(start, len, src, scratch);
+	}
+
+	private void permuteQuarters(int start, int len, int[] src, byte[] scratch) {
+		permute(colors, start, len, src, scratch);
+		permute(levels, start, len, src, scratch);
+	}
+
+	private static void permute(byte[] a, int start, int len, int[] src, byte[] scratch) {
+		int quarter = len / 4;
+		System.arraycopy(a, start, scratch, 0, len);
+		for (int q = 0; q < 4; q++) {
+			System.arraycopy(scratch, src[q] * quarter, a, start + q * quarter, quarter);
+		}
+	}
+
+	/**
+	 * Return the XOR of the Zobrist keys of the leaves of the block at the
+	 * given level and start index.
+	 */
+	private long hashOf(int level, int start) {
+		long h = 0;
+		int end = start + span(level);
+		for (int i = start; i < end; i += span(levels[i])) {
+			int l = levels[i];
+			h ^= Zobrist.key(l, i >> (2 * (max_depth - l)), colors[i]);
+		}
+		return h;
+	}
+
+	// ===== Drawing & flattening =====
+
+	/**
+	 * Draw every leaf of this board.
+	 */
+	public void draw(Graphics2D g) {
+		int i = 0;
+		while (i < colors.length) {
+			int level = levels[i];
+			Rectangle r = rectOf(level, i);
+			g.setColor(Palette.colorAt(colors[i]));
+			g.fill(r);
+			g.setColor(Color.BLACK);
+			g.draw(r);
+			i += span(level);
+		}
+	}
+
+	/**
+	 * Return a two-dimensional Color array representing this board as rows
+	 * and columns of unit cells, laid out the same way as Block.flatten.
+	 */
+	public Color[][] flatten() {
+		int n = 1 << max_depth;
+		Color[][] grid = new Color[n][n];
+		for (int i = 0; i < colors.length; i++) {
+			grid[row(i)][col(i)] = Palette.colorAt(colors[i]);
+		}
+		return grid;
+	}
+
+	/**
+	 * Return a two-dimensional array of colour indices representing this
+	 * board, laid out the same way as Block.flattenIndices.
+	 */
+	public byte[][] flattenIndices() {
+		int n = 1 << max_depth;
+		byte[][] grid = new byte[n][n];
+		for (int i = 0; i < colors.length; i++) {
+			grid[row(i)][col(i)] = colors[i];
+		}
+		return grid;
+	}
+
+	private int col(int index) {
+		int col = 0;
+		for (int l = 0; l < max_depth; l++) {
+			int q = (index >> (2 * (max_depth - l - 1))) & 3;
+			col = (col << 1) | (q == 0 || q == 3 ? 1 : 0);
+		}
+		return col;
+	}
+
+	private int row(int index) {
+		int row = 0;
+		for (int l = 0; l < max_depth; l++) {
+			int q = (index >> (2 * (max_depth - l - 1))) & 3;
+			row = (row << 1) | (q >= 2 ? 1 : 0);
+		}
+		return row;
+	}
+
+	// ===== Colours =====
+
+	private byte randomColor() {
+		return (byte)random.nextInt(Palette.size());
+	}
+
+	// ===== Getters =====
+
+	public Rectangle getRect() {
+		return rect;
+	}
+
+	public int getMaxDepth() {
+		return max_depth;
+	}
+
+	public int getSize() {
+		return rect.width;
+	}
+
+	/**
+	 * Return the Zobrist hash of this board, equal to Block.getHash() for an
+	 * equal Block tree.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	public FlatBlock getRoot() {
+		return new FlatBlock(this, 0, 0);
+	}
+
+	/**
+	 * Return the block reached by following the given child indices from the
+	 * root, or null if the path leads below a leaf (see Block.getDescendant).
+	 */
+	public FlatBlock getDescendant(int[] path) {
+		int start = 0;
+		for (int level = 0; level < path.length; level++) {
+			if (!hasChildren(level, start)) {
+				return null;
+			}
+			start += path[level] * span(level + 1);
+		}
+		return new FlatBlock(this, path.length, start);
+	}
+}
@@ -8,109 +8,85 @@ package game;
  * 
  * === Module Description ===
 This file contains the Game class.  This class extends JPanel and handles the painting of the Blocks
-portion of the game.  It also is in charge of handling player input (MouseListener),
-player turns, and ending the game. 
+portion of the game.  It also is in charge of handling player input (MouseListener)
+and showing what happens in its GameEngine, which plays the turns and ends the game. 
 
  */
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 import javax.swing.*;
 
 import players.HumanPlayer;
 import players.Player;
-import players.SimpleAI;
-import players.SmartAI;
-import players.SmartAI2;
 import ui.BlockyMain;
 
-public class Game extends JPanel implements MouseListener {
-	// A game of Blocky.
+public class Game extends JPanel implements MouseListener, GameListener {
+	// The Swing view of a game of Blocky.
 
 	// === Public Attributes ===
-	// board:
-	// The Blocky board on which this game will be played.
+	// engine:
+	// The game itself: board, players, turns and history. This panel listens
+	// to it and shows what happens.
 	//
-	// players:
-	// The entities that are playing this game.
+	// thinker:
+	// Runs the computer players' turns off the event dispatch thread. At most
+	// one is thinking at a time, and only while it is that player's turn.
+	//
+	// ponderer:
+	// Lets the computer player who moves next think ahead during the current
+	// turn; thinker plays its pondered move if the board matches.
 
 	// === Representation Invariants ===
-	// - len(players) >= 1
+	// - every engine method is called on the event dispatch thread once the
+	//   game has started
 
-	private Stack<Block> history = new Stack<>();
-	public Block board;
-	public List<Player> players = new ArrayList<>();
-	public GameState state;
-	public Block activeBlock;
+	private final GameEngine engine;
+	private final Ponderer ponderer = new Ponderer();
+	private final AIThinker thinker = new AIThinker(ponderer);
 
 	private Point click;
 	private int level;
-	private static final int BOARDSIZE = 768;
-
-	// Turn variables
-	private int playerTurn = 0;
-	private int turnsPlayed = 0;
-	private int maxTurns = 0;
+	private static final int BOARDSIZE = GameEngine.DEFAULT_BOARD_SIZE;
 
 	// set up the colors
 	public static Color WHITE = new Color(255, 255, 255);
 	public static Color BLACK = new Color(0, 0, 0);
-	public static Color PACIFIC_POINT = new Color(1, 128, 181);
-	public static Color OLD_OLIVE = new Color(138, 151, 71);
-	public static Color REAL_RED = new Color(199, 44, 58);
+	public static Color PACIFIC_POINT = Palette.PACIFIC_POINT;
+	public static Color OLD_OLIVE = Palette.OLD_OLIVE;
+	public static Color REAL_RED = Palette.REAL_RED;
 	public static Color MELON_MAMBO = new Color(234, 62, 112);
-	public static Color DAFFODIL_DELIGHT = new Color(255, 211, 92);
+	public static Color DAFFODIL_DELIGHT = Palette.DAFFODIL_DELIGHT;
 	public static Color TEMPTING_TURQUOISE = new Color(75, 196, 213);
-	public static Color[] COLOR_LIST = new Color[] {PACIFIC_POINT, REAL_RED, OLD_OLIVE, DAFFODIL_DELIGHT};
-	public static String[] COLOR_NAMES = new String[] {"Pacific Point", "Real Red", "Old Olive", "Daffodil Delight"};
+	public static Color[] COLOR_LIST = Palette.COLORS;
+	public static String[] COLOR_NAMES = Palette.NAMES;
 
 	public Game(int max_depth, int numHuman, int numSmartAI,
-		int numSmartAI2, int numSimpleAI, int turns) {
+		int numSmartAI2, int numSimpleAI, int numMCTS, int numSearch, int turns) {
 
 		this.setPreferredSize(new Dimension(BOARDSIZE, BOARDSIZE));
 		this.setBackground(Color.darkGray);
 		this.addMouseListener(this);
-		this.maxTurns = turns;
-		state = GameState.start;
-
-		board = new Block(new Point(0, 0), max_depth, null, BOARDSIZE);
-		board.smash();
-
-		initPlayers(numHuman, numSmartAI, numSmartAI2, numSimpleAI);
-	}
-
-	private void initPlayers(int numHuman, int numSmartAI, int numSmartAI2, int numRandomAI) {
-		int id = 1;
-
-		for (int i = 0; i < numHuman; i++) {
-			players.add(new HumanPlayer(id++, this, randomGoal(COLOR_LIST[(id - 1) % 4])));
-		}
-		for (int i = 0; i < numSmartAI; i++) {
-			players.add(new SmartAI(id++, this, randomGoal(COLOR_LIST[(id - 1) % 4])));
-		}
-		for (int i = 0; i < numSmartAI2; i++) {
-			players.add(new SmartAI2(id++, this, randomGoal(COLOR_LIST[(id - 1) % 4])));
-		}
-		for (int i = 0; i < numRandomAI; i++) {
-			players.add(new SimpleAI(id++, this, randomGoal(COLOR_LIST[(id - 1) % 4])));
-		}
-	}
 
-	private Goal randomGoal(Color color) {
-		return Math.random() < 0.5 ? new BlobGoal(color) : new PerimeterGoal(color);
+		// -Dblocky.seed=N replays the game printed with that seed
+		Long seed = Long.getLong("blocky.seed");
+		engine = seed == null
+			? new GameEngine(max_depth, BOARDSIZE, turns)
+			: new GameEngine(max_depth, BOARDSIZE, turns, seed);
+		engine.addPlayers(numHuman, numSmartAI, numSmartAI2, numSimpleAI, numMCTS, numSearch);
+		engine.addListener(this);
 	}
 
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		Graphics2D g2 = (Graphics2D)g;
-		board.draw(g2);
+		engine.getBoard().draw(g2);
 
+		Block activeBlock = engine.getActiveBlock();
 		if (activeBlock != null) {
 			g2.setColor(Color.WHITE);
 			g2.setStroke(new BasicStroke(4));
@@ -118,163 +94,171 @@ public class Game extends JPanel implements MouseListener {
 		}
 	}
 
-	private void saveState() {
-		history.push(board.copyBlock(board));
-	}
-
+	/**
+	 * Play the given action on the selected block for the human player whose
+	 * turn it is, or undo the last move.
+	 */
 	public void nextTurn(Action action) {
 
-		if (state == GameState.completed) {
+		if (engine.getState() == GameState.completed) {
 			BlockyMain.updateStatus("Game is over!", false, REAL_RED);
 			return;
 		}
 
 		if (action == Action.UNDO) {
-			performUndo();
+			if (!engine.undo()) {
+				BlockyMain.updateStatus("Nothing to undo", false, REAL_RED);
+			}
 			return;
 		}
 
-		if (activeBlock == null) {
-			BlockyMain.updateStatus("Please select a block first!", false, REAL_RED);
+		if (thinker.isThinking()) {
+			BlockyMain.updateStatus("Wait for " + engine.getCurrentPlayer().getPlayerName() + " to move",
+				false, MELON_MAMBO);
 			return;
 		}
 
-		saveState();
-
-		boolean success = switch (action) {
-			case SMASH -> activeBlock.smash();
-			case SWAP_VERTICALLY -> activeBlock.swap(true);
-			case SWAP_HORIZONTALLY -> activeBlock.swap(false);
-			case TURN_CW -> activeBlock.rotate(true);
-			case TURN_CCW -> activeBlock.rotate(false);
-			case UNSMASH -> activeBlock.unsmash();
-			default -> false;
-		};
+		if (engine.getActiveBlock() == null) {
+			BlockyMain.updateStatus("Please select a block first!", false, REAL_RED);
+			return;
+		}
 
-		if (!success) {
+		if (!engine.play(engine.getActiveBlock(), action)) {
 			BlockyMain.updateStatus("Action failed!", false, REAL_RED);
-			return;
 		}
+	}
 
-		board.updateBlockLocations();
-		repaint();
+	// ===== GameListener =====
 
-		Player current = players.get(playerTurn);
+	@Override
+	public void gameStarted(GameEngine engine) {
+		System.out.println("Game seed=" + engine.getSeed());
+	}
+
+	@Override
+	public void movePlayed(GameEngine engine, Player player, MoveRecord record) {
+		repaint();
 		BlockyMain.updateStatus(
-			current.getPlayerName() + " score: " + current.getScore(),
+			player.getPlayerName() + " score: " + player.getScore(),
 			false, Color.WHITE
 		);
-
-		endOrContinueTurn();
 	}
 
-	private void performUndo() {
-		if (history.isEmpty()) {
-			BlockyMain.updateStatus("Nothing to undo", false, REAL_RED);
-			return;
-		}
-
-		board = history.pop();
-		activeBlock = null;
+	@Override
+	public void turnPassed(GameEngine engine, Player player) {
+		BlockyMain.updateStatus(player.getPlayerName() + " passes", false, Color.WHITE);
+	}
 
-		if (turnsPlayed > 0) {
-			turnsPlayed--;
-			playerTurn = (playerTurn - 1 + players.size()) % players.size();
-		}
+	@Override
+	public void turnStarted(GameEngine engine, Player player) {
+		BlockyMain.updateTurns(engine.getTurnsPlayed(), engine.getMaxTurns());
+		BlockyMain.updatePlayers();
+		repaint();
+		promptCurrentPlayer();
+	}
 
-		board.updateBlockLocations();
+	@Override
+	public void moveUndone(GameEngine engine, MoveRecord record) {
+		// the move being thought about was for the board being undone
+		thinker.cancel();
 		repaint();
 		BlockyMain.updatePlayers();
-		BlockyMain.updateTurns(turnsPlayed, maxTurns);
+		BlockyMain.updateTurns(engine.getTurnsPlayed(), engine.getMaxTurns());
 		BlockyMain.updateStatus("UNDO applied!", false, MELON_MAMBO);
+		promptCurrentPlayer();
 	}
 
-	private void endOrContinueTurn() {
-		turnsPlayed++;
-		BlockyMain.updateTurns(turnsPlayed, maxTurns);
-
-		if (turnsPlayed >= maxTurns) {
-			endGame();
-			return;
-		}
-
-		playerTurn = (playerTurn + 1) % players.size();
-
+	@Override
+	public void gameEnded(GameEngine engine, Player winner, int score) {
+		thinker.cancel();
+		ponderer.cancel();
 		BlockyMain.updatePlayers();
-		repaint();
 
-		Player current = players.get(playerTurn);
+		BlockyMain.updateTurns(engine.getTurnsPlayed(), engine.getMaxTurns());
+		BlockyMain.updateStatus(
+			"Winner: " + winner.getPlayerName() + " Score: " + score,
+			false, DAFFODIL_DELIGHT
+		);
 
-		if (!(current instanceof HumanPlayer)) {
-			Action aiAction = current.makeMove();
-			SwingUtilities.invokeLater(() -> nextTurn(aiAction));
-		} else {
-			BlockyMain.updateStatus("Your turn, " + current.getPlayerName(), false, Color.WHITE);
-		}
+		BlockyMain.enableActions(false);
 		repaint();
 	}
 
-	public void selectClick() {
-		if (click == null) {
+	// ===== Computer players =====
+
+	/**
+	 * Ask the current player for a move: a human is told it is their turn,
+	 * and a computer player starts thinking on the thinker's thread. While a
+	 * human decides, the computer player who moves next ponders (see
+	 * Ponderer). Later players do not: their boards also depend on the
+	 * computer moves in between. Nobody ponders during a computer player's
+	 * turn, so its search has the CPU to itself.
+	 */
+	private void promptCurrentPlayer() {
+		ponderer.cancel();
+		if (engine.getState() != GameState.playing) {
 			return;
 		}
-		activeBlock = this.board.getSelectedBlock(click.x, click.y, level);
-		repaint();
-	}
-
-	public void endGame() {
-		BlockyMain.updatePlayers();
-
-		int best = Integer.MIN_VALUE;
-		Player winner = null;
+		Player current = engine.getCurrentPlayer();
+		if (current instanceof HumanPlayer) {
+			BlockyMain.updateStatus("Your turn, " + current.getPlayerName(), false, Color.WHITE);
+		} else {
+			BlockyMain.updateStatus(current.getPlayerName() + " is thinking...", false, Color.WHITE);
+			thinker.think(current, engine.getBoard(), engine::playMove, e -> computerPlayerFailed(current, e));
+		}
 
-		for (Player p : players) {
-			int score = p.getScore();
-			if (score > best) {
-				best = score;
-				winner = p;
-			}
+		List<Player> players = engine.getPlayers();
+		Player next = players.get((engine.getPlayerTurn() + 1) % players.size());
+		if (current instanceof HumanPlayer && !(next instanceof HumanPlayer)
+			&& engine.getTurnsPlayed() + 1 < engine.getMaxTurns()) {
+			ponderer.ponder(next, current, engine.getBoard(), e -> ponderFailed(next, e));
 		}
+	}
 
-		BlockyMain.updateTurns(turnsPlayed, maxTurns);
-		BlockyMain.updateStatus(
-			"Winner: " + winner.getPlayerName() + " Score: " + best,
-			false, DAFFODIL_DELIGHT
-		);
+	/**
+	 * Report that a computer player threw instead of choosing a move, and
+	 * pass its turn so the game goes on. Runs on the event dispatch thread.
+	 */
+	private void computerPlayerFailed(Player player, RuntimeException e) {
+		e.printStackTrace();
+		engine.pass();
+		BlockyMain.updateStatus(player.getPlayerName() + " failed to move (" + e + ") and passes",
+			false, REAL_RED);
+	}
 
-		state = GameState.completed;
-		activeBlock = null;
-		BlockyMain.enableActions(false);
-		repaint();
+	/**
+	 * Report that a computer player threw while pondering. Its turn is not
+	 * affected: it thinks from scratch when the turn comes. Runs on the event
+	 * dispatch thread.
+	 */
+	private void ponderFailed(Player player, RuntimeException e) {
+		e.printStackTrace();
+		BlockyMain.updateStatus(player.getPlayerName() + " failed to think ahead (" + e + ")", false, REAL_RED);
+	}
 
-		Color[][] grid = board.flatten();
-		int n = grid.length;
-		int colorCount = 0;
-		int nullCount = 0;
+	// ===== Selection =====
 
-		for (int i = 0; i < n; i++) {
-			for (int j = 0; j < n; j++) {
-				if (grid[i][j] == null) nullCount++;
-				else colorCount++;
-			}
+	public void selectClick() {
+		if (click == null) {
+			return;
 		}
-		System.out.println("Flatten size=" + n + "x" + n + " color=" + colorCount + " null=" + nullCount);
-		System.out.println("Sample color: " + grid[0][0]);
+		engine.setActiveBlock(engine.getBoard().getSelectedBlock(click.x, click.y, level));
+		repaint();
+	}
 
+	public void endGame() {
+		engine.end();
 	}
 
 	public void startGame() {
-		state = GameState.playing;
-		turnsPlayed = 0;
-		playerTurn = 0;
-
-		BlockyMain.updateTurns(0, maxTurns);
+		BlockyMain.updateTurns(0, engine.getMaxTurns());
 		repaint();
+		SwingUtilities.invokeLater(engine::start);
 	}
 
 	@Override
 	public void mouseClicked(MouseEvent e) {
-		if (state == GameState.completed)
+		if (engine.getState() == GameState.completed)
 			return;
 		click = new Point(e.getX(), e.getY());
 		selectClick();
@@ -296,12 +280,24 @@ public class Game extends JPanel implements MouseListener {
 	public void mouseExited(MouseEvent e) {
 	}
 
+	public GameEngine getEngine() {
+		return engine;
+	}
+
+	public List<Player> getPlayers() {
+		return engine.getPlayers();
+	}
+
 	public int getPlayerTurn() {
-		return playerTurn;
+		return engine.getPlayerTurn();
 	}
 
 	public Block getBoard() {
-		return board;
+		return engine.getBoard();
+	}
+
+	public Block getActiveBlock() {
+		return engine.getActiveBlock();
 	}
 
 	public int getLevel() {
@@ -312,11 +308,21 @@ public class Game extends JPanel implements MouseListener {
 		this.level = level;
 	}
 
-	public int getMaxTurns() {
-		return maxTurns;
-	}
-
 	public static Color[] getColorList() {
 		return COLOR_LIST;
 	}
+
+	/**
+	 * Return the index of the given colour (see Palette.indexOf).
+	 */
+	public static byte colorIndex(Color c) {
+		return Palette.indexOf(c);
+	}
+
+	/**
+	 * Return the colour with the given index, the inverse of colorIndex.
+	 */
+	public static Color colorAt(int index) {
+		return Palette.colorAt(index);
+	}
 }
@@ -0,0 +1,434 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the GameEngine class, the rules of a game of Blocky
+ * without any user interface.
+ */
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import players.HumanPlayer;
+import players.MCTSPlayer;
+import players.Player;
+import players.SearchPlayer;
+import players.SimpleAI;
+import players.SmartAI;
+import players.SmartAI2;
+
+/**
+ * A game of Blocky: the board, the players, whose turn it is and the moves
+ * played so far. It needs no display, and any number of games can run in one
+ * JVM; a GameEngine itself is meant to be used from one thread at a time.
+ *
+ * What happens is published to the GameListeners added to the engine. The
+ * Swing Game panel is one such listener.
+ *
+ * A human player's moves are passed in with play. Computer players can be
+ * asked for theirs with playTurn, or the whole game can be played out with
+ * playToEnd when there are no human players.
+ *
+ * All of a game's randomness, its board, the players' goals and the
+ * players' own random choices, is drawn from one generator seeded with
+ * seed. Two games with the same seed, players and moves are identical, so a
+ * game is replayed by creating it again from its seed.
+ *
+ * === Public Attributes ===
+ * board:
+ * The Blocky board on which this game is played.
+ *
+ * players:
+ * The players, in turn order.
+ *
+ * history:
+ * The log of moves applied to board, most recent on top.
+ *
+ * activeBlock:
+ * The block selected for the current player's move, if any.
+ *
+ * seed:
+ * The seed of the generator the game's randomness is drawn from.
+ *
+ * === Representation Invariants ===
+ * - 0 <= playerTurn < len(players) once the game has started
+ * - turnsPlayed <= maxTurns
+ * - state is completed exactly when winner has been decided
+ */
+public class GameEngine {
+
+	public static final int DEFAULT_BOARD_SIZE = 768;
+
+	private final long seed;
+	private final SplittableRandom random;
+	private final Block board;
+	private final List<Player> players = new ArrayList<>();
+	private final Stack<MoveRecord> history = new Stack<>();
+	private final ScoreBoard scoreBoard = new ScoreBoard();
+	private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+	private GameState state = GameState.start;
+	private Block activeBlock;
+
+	private int playerTurn = 0;
+	private int turnsPlayed = 0;
+	private final int maxTurns;
+
+	private Player winner;
+	private int winningScore;
+
+	/**
+	 * Create a game with a random board of the given depth and default size,
+	 * and no players yet.
+	 */
+	public GameEngine(int maxDepth, int turns) {
+		this(maxDepth, DEFAULT_BOARD_SIZE, turns);
+	}
+
+	/**
+	 * Create a game with a random board of the given depth and size in
+	 * pixels, and no players yet.
+	 */
+	public GameEngine(int maxDepth, int boardSize, int turns) {
+		this(maxDepth, boardSize, turns, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * Create a game of the given depth and size in pixels whose randomness is
+	 * drawn from the given seed, and no players yet.
+	 */
+	public GameEngine(int maxDepth, int boardSize, int turns, long seed) {
+		this(maxDepth, boardSize, turns, seed, BoardGenerator.CLASSIC);
+	}
+
+	/**
+	 * Create a game of the given depth and size in pixels whose randomness is
+	 * drawn from the given seed, on a board generated with the given profile
+	 * (see BoardGenerator), and no players yet.
+	 */
+	public GameEngine(int maxDepth, int boardSize, int turns, long seed, BoardGenerator.Profile profile) {
+		this.maxTurns = turns;
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+		board = BoardGenerator.generate(maxDepth, boardSize, profile, random.split());
+	}
+
+	// ===== Players and listeners =====
+
+	/**
+	 * Add a player after those already playing. Players must be added before
+	 * the game starts.
+	 */
+	public void addPlayer(Player player) {
+		if (state != GameState.start) {
+			throw new IllegalStateException("Players must be added before the game starts");
+		}
+		players.add(player);
+		scoreBoard.register(player.getGoal());
+	}
+
+	/**
+	 * Add the given numbers of each kind of player, in this order, each with
+	 * a random goal. Player ids follow on from those already playing.
+	 */
+	public void addPlayers(int numHuman, int numSmartAI, int numSmartAI2, int numRandomAI, int numMCTS,
+		int numSearch) {
+		int id = players.size() + 1;
+
+		for (int i = 0; i < numHuman; i++) {
+			addPlayer(new HumanPlayer(id, this, randomGoal(id++)));
+		}
+		for (int i = 0; i < numSmartAI; i++) {
+			addPlayer(new SmartAI(id, this, randomGoal(id++)));
+		}
+		for (int i = 0; i < numSmartAI2; i++) {
+			addPlayer(new SmartAI2(id, this, randomGoal(id++)));
+		}
+		for (int i = 0; i < numRandomAI; i++) {
+			addPlayer(new SimpleAI(id, this, randomGoal(id++)));
+		}
+		for (int i = 0; i < numMCTS; i++) {
+			addPlayer(new MCTSPlayer(id, this, randomGoal(id++)));
+		}
+		for (int i = 0; i < numSearch; i++) {
+			addPlayer(new SearchPlayer(id, this, randomGoal(id++)));
+		}
+	}
+
+	/**
+	 * Return a random goal for the player with the given id. Players take
+	 * the board colours in turn.
+	 */
+	public Goal randomGoal(int id) {
+		Color color = Palette.color(id % Palette.size());
+		return random.nextBoolean() ? new BlobGoal(color) : new PerimeterGoal(color);
+	}
+
+	/**
+	 * Return a new generator seeded from this game's, for a player's random
+	 * choices. Each player should take one when it is created, so its
+	 * choices do not depend on when the others make theirs.
+	 */
+	public CopyableRandom newRandom() {
+		return new CopyableRandom(random.nextLong());
+	}
+
+	public void addListener(GameListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(GameListener listener) {
+		listeners.remove(listener);
+	}
+
+	// ===== Turns =====
+
+	/**
+	 * Start the game with the first player's turn.
+	 */
+	public void start() {
+		if (players.isEmpty()) {
+			throw new IllegalStateException("A game needs at least one player");
+		}
+		state = GameState.playing;
+		turnsPlayed = 0;
+		playerTurn = 0;
+		for (GameListener l : listeners) {
+			l.gameStarted(this);
+		}
+		startTurn();
+	}
+
+	/**
+	 * Play the given action on target, a block of this game's board, as the
+	 * current player's turn. Return false, changing nothing, if the game is
+	 * not being played or the action cannot run on target.
+	 */
+	public boolean play(Block target, Action action) {
+		if (state != GameState.playing || target == null || action == Action.UNDO) {
+			return false;
+		}
+		MoveRecord record = Move.of(target, action).apply(board);
+		if (record == null) {
+			return false;
+		}
+		history.push(record);
+		board.updateBlockLocations();
+
+		Player current = getCurrentPlayer();
+		for (GameListener l : listeners) {
+			l.movePlayed(this, current, record);
+		}
+		endTurn();
+		return true;
+	}
+
+	/**
+	 * End the current player's turn without a move.
+	 */
+	public void pass() {
+		if (state != GameState.playing) {
+			return;
+		}
+		Player current = getCurrentPlayer();
+		for (GameListener l : listeners) {
+			l.turnPassed(this, current);
+		}
+		endTurn();
+	}
+
+	/**
+	 * Ask the current player for a move on this game's board and play it
+	 * (see playMove).
+	 */
+	public void playTurn() {
+		if (state != GameState.playing) {
+			return;
+		}
+		playMove(getCurrentPlayer().chooseMove(board));
+	}
+
+	/**
+	 * Play a move the current player has chosen, selecting its block as the
+	 * active block. The player passes if move is null or cannot be played;
+	 * an UNDO is a human's request (see Game.nextTurn), never a computer
+	 * player's move, so it passes too.
+	 */
+	public void playMove(Move move) {
+		if (state != GameState.playing) {
+			return;
+		}
+		Block target = move == null ? null : move.target(board);
+		activeBlock = target;
+		if (target == null || !play(target, move.getAction())) {
+			pass();
+		}
+	}
+
+	/**
+	 * Play turns until the game is over. Every player must be a computer
+	 * player.
+	 */
+	public void playToEnd() {
+		for (Player p : players) {
+			if (p instanceof HumanPlayer) {
+				throw new IllegalStateException("playToEnd needs computer players only");
+			}
+		}
+		if (state == GameState.start) {
+			start();
+		}
+		while (state == GameState.playing) {
+			playTurn();
+		}
+	}
+
+	/**
+	 * Revert the last move and hand the turn back to the player who made it.
+	 * Return false if there is nothing to undo.
+	 */
+	public boolean undo() {
+		if (state != GameState.playing || history.isEmpty()) {
+			return false;
+		}
+		MoveRecord record = history.pop();
+		record.revert(board);
+		board.updateBlockLocations();
+		activeBlock = null;
+
+		if (turnsPlayed > 0) {
+			turnsPlayed--;
+			playerTurn = (playerTurn - 1 + players.size()) % players.size();
+		}
+
+		for (GameListener l : listeners) {
+			l.moveUndone(this, record);
+		}
+		return true;
+	}
+
+	/**
+	 * End the game now and decide the winner: the first player with the best
+	 * score.
+	 */
+	public void end() {
+		if (state == GameState.completed) {
+			return;
+		}
+		int best = Integer.MIN_VALUE;
+		Player leader = null;
+		for (Player p : players) {
+			int score = p.getScore();
+			if (score > best) {
+				best = score;
+				leader = p;
+			}
+		}
+		winner = leader;
+		winningScore = best;
+		state = GameState.completed;
+		activeBlock = null;
+		for (GameListener l : listeners) {
+			l.gameEnded(this, winner, winningScore);
+		}
+	}
+
+	private void endTurn() {
+		turnsPlayed++;
+		if (turnsPlayed >= maxTurns) {
+			end();
+			return;
+		}
+		playerTurn = (playerTurn + 1) % players.size();
+		startTurn();
+	}
+
+	private void startTurn() {
+		activeBlock = null;
+		Player current = getCurrentPlayer();
+		for (GameListener l : listeners) {
+			l.turnStarted(this, current);
+		}
+	}
+
+	// ===== Getters / Setters =====
+
+	public Block getBoard() {
+		return board;
+	}
+
+	/**
+	 * Return the seed this game's randomness is drawn from.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Return the players in turn order. The list cannot be modified.
+	 */
+	public List<Player> getPlayers() {
+		return Collections.unmodifiableList(players);
+	}
+
+	public Player getCurrentPlayer() {
+		return players.get(playerTurn);
+	}
+
+	public int getPlayerTurn() {
+		return playerTurn;
+	}
+
+	public int getTurnsPlayed() {
+		return turnsPlayed;
+	}
+
+	public int getMaxTurns() {
+		return maxTurns;
+	}
+
+	public GameState getState() {
+		return state;
+	}
+
+	/**
+	 * Return the number of moves that can be undone.
+	 */
+	public int getHistorySize() {
+		return history.size();
+	}
+
+	/**
+	 * Return the scores of the players' goals on the current board.
+	 */
+	public ScoreBoard getScoreBoard() {
+		return scoreBoard;
+	}
+
+	public Block getActiveBlock() {
+		return activeBlock;
+	}
+
+	public void setActiveBlock(Block activeBlock) {
+		this.activeBlock = activeBlock;
+	}
+
+	/**
+	 * Return the winner of a completed game, or null if it is not over.
+	 */
+	public Player getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Return the winner's score of a completed game.
+	 */
+	public int getWinningScore() {
+		return winningScore;
+	}
+}
@@ -0,0 +1,57 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the GameListener interface, which is told what happens
+ * in a GameEngine.
+ */
+
+import players.Player;
+
+/**
+ * Receives the events of a GameEngine. Every method does nothing by default,
+ * so a listener only overrides what it shows.
+ *
+ * Events are published on the thread that called the GameEngine method
+ * causing them.
+ */
+public interface GameListener {
+
+	/**
+	 * The game has started; the first turn is about to start.
+	 */
+	default void gameStarted(GameEngine engine) {
+	}
+
+	/**
+	 * It is now player's turn.
+	 */
+	default void turnStarted(GameEngine engine, Player player) {
+	}
+
+	/**
+	 * player has played the given move. The turn ends after this event.
+	 */
+	default void movePlayed(GameEngine engine, Player player, MoveRecord record) {
+	}
+
+	/**
+	 * player has passed their turn without moving.
+	 */
+	default void turnPassed(GameEngine engine, Player player) {
+	}
+
+	/**
+	 * The given move has been reverted, and the turn handed back to the
+	 * player who made it.
+	 */
+	default void moveUndone(GameEngine engine, MoveRecord record) {
+	}
+
+	/**
+	 * The game is over. winner is the first player with the best score.
+	 */
+	default void gameEnded(GameEngine engine, Player winner, int score) {
+	}
+}
@@ -7,23 +7,152 @@ package game;
  */
 
 import java.awt.*;
+import java.util.SplittableRandom;
 
 public abstract class Goal {
 	private Color targetColor;
+	private byte targetIndex;
 
 	public Goal(Color targetColor) {
-		this.targetColor = targetColor;
+		setTargetColor(targetColor);
 	}
 
 	public Color getTargetColor() {
 		return targetColor;
 	}
 
+	/**
+	 * Return Palette.indexOf of the target colour, the value scoring compares
+	 * against flattened index grids.
+	 */
+	public byte getTargetIndex() {
+		return targetIndex;
+	}
+
 	public void setTargetColor(Color targetColor) {
 		this.targetColor = targetColor;
+		this.targetIndex = Palette.indexOf(targetColor);
 	}
 
-	public abstract int score(Block board);
+	public int score(Block board) {
+		if (board == null || targetColor == null) {
+			return 0;
+		}
+		return score(board.flattenIndices());
+	}
+
+	public int score(FlatBoard board) {
+		if (board == null || targetColor == null) {
+			return 0;
+		}
+		return score(board.flattenIndices());
+	}
+
+	/**
+	 * Return the score of a board viewed as one bitset per colour. Goals
+	 * that can score the bitsets directly override this.
+	 */
+	public int score(BitBoard board) {
+		if (board == null || targetColor == null) {
+			return 0;
+		}
+		return score(board.toIndices());
+	}
+
+	/**
+	 * Return the score of a board that has already been flattened into rows
+	 * and columns of colour indices (see Block.flattenIndices).
+	 */
+	public abstract int score(byte[][] grid);
+
+	/**
+	 * Return how much running the given action on block would change the
+	 * score of board, leaving board as it was. board must be the top-level
+	 * block that block belongs to. Returns 0 if the action cannot run.
+	 *
+	 * Only the cells of block can change, so the move is not even applied
+	 * unless touchesRegion says they count, and then regionScore is compared
+	 * before and after it. By default that is the whole board's score;
+	 * goals whose score is a sum over cells override the two hooks to
+	 * rescan only block.
+	 */
+	public int scoreDelta(Block board, Block block, Action action) {
+		return scoreDelta(board, block, action, null);
+	}
+
+	/**
+	 * Return scoreDelta(board, block, action), with the colours of a smash
+	 * drawn from the given generator rather than the board's (see
+	 * Move.apply). Scoring a smash this way leaves the board's generator
+	 * where it was.
+	 */
+	public int scoreDelta(Block board, Block block, Action action, SplittableRandom colours) {
+		if (board == null || block == null || targetColor == null) {
+			return 0;
+		}
+		int n = 1 << (board.getMaxDepth() - board.getLevel());
+		int size = 1 << (block.getMaxDepth() - block.getLevel());
+		int[] origin = cellOrigin(board, block);
+		if (!touchesRegion(origin[0], origin[1], size, n)) {
+			return 0;
+		}
+		int before = regionScore(board, block, origin[0], origin[1], size, n);
+		MoveRecord record = Move.of(block, action).apply(board, colours);
+		if (record == null) {
+			return 0;
+		}
+		// every action changes block in place, so it is still the region
+		int after = regionScore(board, block, origin[0], origin[1], size, n);
+		record.revert(board);
+		return after - before;
+	}
+
+	/**
+	 * Return whether the size x size cells at (row, col) of an n x n board
+	 * can contribute to this goal's score. If not, no move inside them
+	 * changes the score.
+	 */
+	protected boolean touchesRegion(int row, int col, int size, int n) {
+		return true;
+	}
+
+	/**
+	 * Return a score of board that differs from the whole board's score only
+	 * by a part that does not depend on block, whose size x size cells are
+	 * at (row, col) of the n x n board. The default is the whole board's
+	 * score, through the shared ScoreCache.
+	 */
+	protected int regionScore(Block board, Block block, int row, int col, int size, int n) {
+		return ScoreCache.shared().score(this, board);
+	}
+
+	/**
+	 * Return the (row, col) in unit cells of block's upper-left corner within
+	 * board, an ancestor of block (or block itself).
+	 */
+	private static int[] cellOrigin(Block board, Block block) {
+		int row = 0;
+		int col = 0;
+		for (Block b = block; b != board; b = b.getParent()) {
+			int size = 1 << (b.getMaxDepth() - b.getLevel());
+			Block[] siblings = b.getParent().getChildren();
+			for (int q = 0; q < 4; q++) {
+				if (siblings[q] == b) {
+					row += q >= 2 ? size : 0;
+					col += q == 0 || q == 3 ? size : 0;
+				}
+			}
+		}
+		return new int[] {row, col};
+	}
+
+	/**
+	 * Return a key identifying what this goal scores, for ScoreCache. Goals
+	 * of the same class and target colour share a key.
+	 */
+	public long cacheKey() {
+		return ((long)getClass().getName().hashCode() << 8) ^ (targetIndex & 0xFF);
+	}
 
 	public abstract String goalDescription();
 
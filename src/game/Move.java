@@ -0,0 +1,93 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the Move class, an action on a block identified by its
+ * path from the root.
+ */
+
+import java.util.SplittableRandom;
+
+/**
+ * An Action applied to the block at a given path. A Move refers to its block
+ * by path rather than by reference, so the same Move can be applied to any
+ * copy of a board.
+ *
+ * === Public Attributes ===
+ * path:
+ * The child indices leading from the root to the block (see Block.getPath).
+ *
+ * action:
+ * The action to run on that block.
+ */
+public final class Move {
+
+	private final int[] path;
+	private final Action action;
+
+	public Move(int[] path, Action action) {
+		this.path = path;
+		this.action = action;
+	}
+
+	/**
+	 * Return the Move that runs the given action on the given block.
+	 */
+	public static Move of(Block target, Action action) {
+		return new Move(target.getPath(), action);
+	}
+
+	/**
+	 * Return the block of the given board that this Move acts on, or null if
+	 * the board has no block at this Move's path.
+	 */
+	public Block target(Block root) {
+		return root.getDescendant(path);
+	}
+
+	/**
+	 * Return the block of the given FlatBoard that this Move acts on, or null
+	 * if the board has no block at this Move's path.
+	 */
+	public FlatBlock target(FlatBoard board) {
+		return board.getDescendant(path);
+	}
+
+	/**
+	 * Apply this Move to the given board.
+	 *
+	 * @return a record that can revert the move, or null if it failed
+	 */
+	public MoveRecord apply(Block root) {
+		return apply(root, null);
+	}
+
+	/**
+	 * Apply this Move to the given board, drawing the colours of a smash from
+	 * the given generator, or from the board's own if it is null.
+	 *
+	 * @return a record that can revert the move, or null if it failed
+	 */
+	public MoveRecord apply(Block root, SplittableRandom colours) {
+		Block target = target(root);
+		if (target == null) {
+			return null;
+		}
+		// Smash and unsmash have no inverse action, so keep what they replace.
+		BoardSnapshot displaced = action.inverse() == null ? BoardSnapshot.of(target) : null;
+		boolean done = colours != null && action == Action.SMASH ? target.smash(colours) : action.runAction(target);
+		if (!done) {
+			return null;
+		}
+		return new MoveRecord(this, displaced);
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	public Action getAction() {
+		return action;
+	}
+}
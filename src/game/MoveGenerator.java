@@ -0,0 +1,82 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the MoveGenerator class, which lists every legal move
+ * of a board.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enumerates the moves of a board: every block of the tree, visited once,
+ * paired with every action that would change it.
+ *
+ * Moves that cannot change the board are left out:
+ * - smashing a block that already has children or is at max_depth
+ * - unsmashing, swapping or rotating a leaf
+ * - swapping or rotating a block whose four children are leaves of one colour
+ * UNDO is not a move on a block and is never generated.
+ */
+public final class MoveGenerator {
+
+	private static final Action[] CHILD_MOVES = {
+		Action.UNSMASH,
+		Action.SWAP_VERTICALLY,
+		Action.SWAP_HORIZONTALLY,
+		Action.TURN_CW,
+		Action.TURN_CCW
+	};
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Return the legal moves of the board with the given root, in depth-first
+	 * order of their blocks.
+	 */
+	public static List<Move> generate(Block root) {
+		List<Move> moves = new ArrayList<>();
+		generate(root, new int[root.getMaxDepth() - root.getLevel()], 0, moves);
+		return moves;
+	}
+
+	private static void generate(Block b, int[] path, int depth, List<Move> moves) {
+		int[] blockPath = Arrays.copyOf(path, depth);
+		if (!b.hasChildren()) {
+			if (b.getLevel() < b.getMaxDepth()) {
+				moves.add(new Move(blockPath, Action.SMASH));
+			}
+			return;
+		}
+
+		boolean uniform = isUniform(b.getChildren());
+		for (Action action : CHILD_MOVES) {
+			if (action == Action.UNSMASH || !uniform) {
+				moves.add(new Move(blockPath, action));
+			}
+		}
+
+		Block[] children = b.getChildren();
+		for (int q = 0; q < children.length; q++) {
+			path[depth] = q;
+			generate(children[q], path, depth + 1, moves);
+		}
+	}
+
+	/**
+	 * Return whether the given children are all leaves of the same colour,
+	 * so that permuting them changes nothing.
+	 */
+	private static boolean isUniform(Block[] children) {
+		for (Block c : children) {
+			if (c.hasChildren() || c.getColorIndex() != children[0].getColorIndex()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
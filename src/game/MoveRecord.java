@@ -0,0 +1,47 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the MoveRecord class, an entry of the undo log.
+ */
+
+/**
+ * A Move that has been applied to a board, with what is needed to revert it.
+ *
+ * === Public Attributes ===
+ * move:
+ * The Move that was applied.
+ *
+ * displaced:
+ * For smash and unsmash, a snapshot of the target block from before the
+ * move (the leaf colour, or the removed subtree). Null for moves that are
+ * reverted by their inverse action.
+ */
+public final class MoveRecord {
+
+	private final Move move;
+	private final BoardSnapshot displaced;
+
+	MoveRecord(Move move, BoardSnapshot displaced) {
+		this.move = move;
+		this.displaced = displaced;
+	}
+
+	/**
+	 * Undo this move on the board it was applied to. The board must not have
+	 * changed since, other than by moves that were already reverted.
+	 */
+	public void revert(Block root) {
+		Block target = move.target(root);
+		if (displaced != null) {
+			target.restore(displaced);
+		} else {
+			move.getAction().inverse().runAction(target);
+		}
+	}
+
+	public Move getMove() {
+		return move;
+	}
+}
@@ -0,0 +1,102 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the Palette class, the colours blocks are painted with.
+ */
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The board colours and their indices.
+ *
+ * Every colour has one index, a byte, which is what flattened grids,
+ * FlatBoards and BitBoards store. The board colours are indices 0 to
+ * COLORS.length - 1; any other colour (e.g. in tests) is given the next free
+ * index the first time it is seen.
+ *
+ * Palette has no Swing or Game dependency, so boards can be built and scored
+ * without a display. Game re-exports these colours for the UI.
+ */
+public final class Palette {
+
+	public static final Color PACIFIC_POINT = new Color(1, 128, 181);
+	public static final Color OLD_OLIVE = new Color(138, 151, 71);
+	public static final Color REAL_RED = new Color(199, 44, 58);
+	public static final Color DAFFODIL_DELIGHT = new Color(255, 211, 92);
+
+	static final Color[] COLORS = {PACIFIC_POINT, REAL_RED, OLD_OLIVE, DAFFODIL_DELIGHT};
+	static final String[] NAMES = {"Pacific Point", "Real Red", "Old Olive", "Daffodil Delight"};
+
+	private static final List<Color> EXTRA_COLORS = new ArrayList<>();
+
+	private Palette() {
+	}
+
+	/**
+	 * Return the number of board colours.
+	 */
+	public static int size() {
+		return COLORS.length;
+	}
+
+	/**
+	 * Return the board colour with the given index, 0 to size() - 1.
+	 */
+	public static Color color(int index) {
+		return COLORS[index];
+	}
+
+	/**
+	 * Return the name of the board colour with the given index, or "Colour i"
+	 * for a colour outside the board colours.
+	 */
+	public static String name(int index) {
+		return index >= 0 && index < NAMES.length ? NAMES[index] : "Colour " + index;
+	}
+
+	/**
+	 * Return the index of the given colour, or -1 for null. Colours that are
+	 * not board colours are assigned indices after them the first time they
+	 * are seen, so every colour has exactly one index.
+	 */
+	public static byte indexOf(Color c) {
+		if (c == null) {
+			return -1;
+		}
+		for (int i = 0; i < COLORS.length; i++) {
+			if (COLORS[i].equals(c)) {
+				return (byte)i;
+			}
+		}
+		synchronized (EXTRA_COLORS) {
+			int i = EXTRA_COLORS.indexOf(c);
+			if (i < 0) {
+				if (COLORS.length + EXTRA_COLORS.size() >= Byte.MAX_VALUE) {
+					throw new IllegalStateException("Too many colours: " + c);
+				}
+				EXTRA_COLORS.add(c);
+				i = EXTRA_COLORS.size() - 1;
+			}
+			return (byte)(COLORS.length + i);
+		}
+	}
+
+	/**
+	 * Return the colour with the given index, the inverse of indexOf.
+	 */
+	public static Color colorAt(int index) {
+		if (index < 0) {
+			return null;
+		}
+		if (index < COLORS.length) {
+			return COLORS[index];
+		}
+		synchronized (EXTRA_COLORS) {
+			return EXTRA_COLORS.get(index - COLORS.length);
+		}
+	}
+}
@@ -4,54 +4,163 @@ import java.awt.Color;
 
 public class PerimeterGoal extends Goal {
 
+	// score(byte[][]) counts a lone cell as both sides of each row and column
+	// plus its four corners.
+	private static final int SINGLE_CELL = 6;
+
 	public PerimeterGoal(Color targetColor) {
 		super(targetColor);
 	}
 
+	/**
+	 * Score the board on its tree, descending only into blocks that touch the
+	 * edge of the board. A leaf contributes its width in unit cells for every
+	 * side it lies on, so corners count twice as in score(byte[][]).
+	 */
 	@Override
 	public int score(Block board) {
 		if (board == null || getTargetColor() == null) {
 			return 0;
 		}
+		int n = 1 << (board.getMaxDepth() - board.getLevel());
+		if (n == 1) {
+			return board.getColorIndex() == getTargetIndex() ? SINGLE_CELL : 0;
+		}
+		return edgeScore(board, 0, 0, n, n);
+	}
+
+	/**
+	 * Only cells on the edge of the board count.
+	 */
+	@Override
+	protected boolean touchesRegion(int row, int col, int size, int n) {
+		return sidesTouched(row, col, size, n) != 0;
+	}
 
-		Color[][] grid = board.flatten();
+	/**
+	 * The edge cells of block, rescanned on the tree.
+	 */
+	@Override
+	protected int regionScore(Block board, Block block, int row, int col, int size, int n) {
+		return edgeScore(block, row, col, size, n);
+	}
+
+	@Override
+	public int score(FlatBoard board) {
+		if (board == null || getTargetColor() == null) {
+			return 0;
+		}
+		int n = 1 << board.getMaxDepth();
+		if (n == 1) {
+			return board.colorIndexAt(0) == getTargetIndex() ? SINGLE_CELL : 0;
+		}
+		return edgeScore(board, 0, 0, 0, 0, n, n);
+	}
+
+	private int edgeScore(Block b, int row, int col, int size, int n) {
+		int sides = sidesTouched(row, col, size, n);
+		if (sides == 0) {
+			return 0;
+		}
+		if (!b.hasChildren()) {
+			return b.getColorIndex() == getTargetIndex() ? sides * size : 0;
+		}
+		int half = size / 2;
+		Block[] children = b.getChildren();
+		int score = 0;
+		for (int q = 0; q < 4; q++) {
+			score += edgeScore(children[q], row + (q >= 2 ? half : 0),
+				col + (q == 0 || q == 3 ? half : 0), half, n);
+		}
+		return score;
+	}
+
+	private int edgeScore(FlatBoard board, int level, int start, int row, int col, int size, int n) {
+		int sides = sidesTouched(row, col, size, n);
+		if (sides == 0) {
+			return 0;
+		}
+		if (!board.hasChildren(level, start)) {
+			return board.colorIndexAt(start) == getTargetIndex() ? sides * size : 0;
+		}
+		int half = size / 2;
+		int span = board.span(level + 1);
+		int score = 0;
+		for (int q = 0; q < 4; q++) {
+			score += edgeScore(board, level + 1, start + q * span, row + (q >= 2 ? half : 0),
+				col + (q == 0 || q == 3 ? half : 0), half, n);
+		}
+		return score;
+	}
+
+	/**
+	 * Return how many sides of an n x n board the square of the given size at
+	 * (row, col) lies on.
+	 */
+	private static int sidesTouched(int row, int col, int size, int n) {
+		int sides = 0;
+		if (row == 0) {
+			sides++;
+		}
+		if (col == 0) {
+			sides++;
+		}
+		if (row + size == n) {
+			sides++;
+		}
+		if (col + size == n) {
+			sides++;
+		}
+		return sides;
+	}
+
+	@Override
+	public int score(BitBoard board) {
+		if (board == null || getTargetColor() == null) {
+			return 0;
+		}
+		return board.perimeter(getTargetIndex());
+	}
+
+	@Override
+	public int score(byte[][] grid) {
 		int n = grid.length;
 		if (n == 0) {
 			return 0;
 		}
 
-		Color targetColor = getTargetColor();
+		byte targetColor = getTargetIndex();
 		int last = n - 1;
 		int score = 0;
 
 		for (int x = 0; x < n; x++) {
-			if (grid[x][0].equals(targetColor)) {
+			if (grid[x][0] == targetColor) {
 				score++;
 			}
-			if (grid[x][last].equals(targetColor)) {
+			if (grid[x][last] == targetColor) {
 				score++;
 			}
 		}
 
 		for (int y = 1; y < last; y++) {
-			if (grid[0][y].equals(targetColor)) {
+			if (grid[0][y] == targetColor) {
 				score++;
 			}
-			if (grid[last][y].equals(targetColor)) {
+			if (grid[last][y] == targetColor) {
 				score++;
 			}
 		}
 
-		if (grid[0][0].equals(targetColor)) {
+		if (grid[0][0] == targetColor) {
 			score++;
 		}
-		if (grid[0][last].equals(targetColor)) {
+		if (grid[0][last] == targetColor) {
 			score++;
 		}
-		if (grid[last][0].equals(targetColor)) {
+		if (grid[last][0] == targetColor) {
 			score++;
 		}
-		if (grid[last][last].equals(targetColor)) {
+		if (grid[last][last] == targetColor) {
 			score++;
 		}
 
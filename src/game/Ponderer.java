@@ -0,0 +1,270 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the Ponderer class, which lets a computer player think
+ * ahead during the turn before its own.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import players.Player;
+
+/**
+ * Searches ahead for the player who moves next while another player is
+ * moving.
+ *
+ * The mover's likely moves are ranked by their score delta for the mover's
+ * goal (see Goal.scoreDelta), and the next player chooses its move on each
+ * of the best BOARDS resulting boards, exactly as it would on its turn. Each
+ * board is thought about by a fresh Player.ponderCopy, so the boards that are
+ * never played leave nothing behind in the player: not its search trees or
+ * counters, and not a single value drawn from its generator. The chosen
+ * moves are kept by board hash with the copy that chose them. When the next
+ * player's turn comes, choose plays the kept move for the actual board and
+ * has the player adopt that copy's state, or thinks as usual if that board
+ * was not pondered, and throws the rest away. Either way the player ends up
+ * as if it had thought on its turn, so seeded games replay the same.
+ *
+ * Pondering does not add to a player's thinking time. Its budget for the
+ * turn (see Player.getBudgetMillis) is split into BOARDS + 1 slices: each
+ * pondered board gets one, and if none of them is played, the search on
+ * the actual board gets whatever pondering left, and at least one slice.
+ * Players without a time budget do a fixed amount of work per move that
+ * cannot be split, so they do not ponder.
+ *
+ * Smashes are not predicted: they colour the new blocks at random, so the
+ * board they lead to is never the one pondered.
+ *
+ * Pondering runs on virtual threads when the JVM has them, otherwise on
+ * daemon platform threads. A player's chooseMove is never run twice at once:
+ * choose waits for the player's pondering to stop, so pondering should be
+ * cancelled before its turn starts.
+ *
+ * === Representation Invariants ===
+ * - every move in results.get(p).moves was chosen by a ponder copy of p,
+ *   made before p's turn, on a board with that hash
+ */
+public final class Ponderer {
+
+	// How many of the mover's likely boards are pondered.
+	private static final int BOARDS = 6;
+
+	private final ExecutorService executor = newExecutor();
+	private final Map<Player, Pondering> results = new ConcurrentHashMap<>();
+	private final Map<Player, ReentrantLock> locks = new ConcurrentHashMap<>();
+	private Future<?> pending;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Return a virtual-thread-per-task executor if this JVM has one, or a
+	 * pool of daemon threads.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "blocky-ponder");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Start player pondering the boards that mover's likely moves lead to
+	 * from a snapshot of board, cancelling any pondering in progress. If the
+	 * player throws, onError is run with the exception on the event dispatch
+	 * thread, unless the pondering was cancelled first. Does nothing for a
+	 * player without a time budget.
+	 */
+	public synchronized void ponder(Player player, Player mover, Block board, Consumer<RuntimeException> onError) {
+		cancel();
+		if (player.getBudgetMillis() <= 0) {
+			return;
+		}
+		Block snapshot = board.copyBlock(board);
+		Pondering pondering = new Pondering();
+		results.put(player, pondering);
+		pending = executor.submit(() -> {
+			ReentrantLock lock = lockOf(player);
+			try {
+				lock.lockInterruptibly();
+			} catch (InterruptedException e) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				Player base = player.ponderCopy();
+				long slice = sliceOf(base.getBudgetMillis());
+				for (Move likely : likelyMoves(mover.getGoal(), snapshot)) {
+					if (Thread.currentThread().isInterrupted()) {
+						return;
+					}
+					MoveRecord record = likely.apply(snapshot);
+					if (record == null) {
+						continue;
+					}
+					try {
+						Player copy = base.ponderCopy();
+						copy.setBudgetMillis(slice);
+						Move move = copy.chooseMove(snapshot);
+						if (move != null && !Thread.currentThread().isInterrupted()) {
+							pondering.moves.put(snapshot.getHash(), new Pondered(move, copy));
+						}
+					} finally {
+						record.revert(snapshot);
+					}
+				}
+			} catch (RuntimeException e) {
+				if (!Thread.currentThread().isInterrupted()) {
+					SwingUtilities.invokeLater(() -> onError.accept(e));
+				}
+			} finally {
+				pondering.spentMillis = (System.nanoTime() - start) / 1_000_000L;
+				lock.unlock();
+			}
+		});
+	}
+
+	/**
+	 * Stop the pondering in progress, if any. What it has found so far is
+	 * kept.
+	 */
+	public synchronized void cancel() {
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Return player's move on board: the move it pondered for this board if
+	 * there is one, with player adopting the state of the copy that chose it,
+	 * otherwise player.chooseMove(board) with what pondering left of its
+	 * budget. Every other pondered move of player is discarded.
+	 */
+	public Move choose(Player player, Block board) {
+		ReentrantLock lock = lockOf(player);
+		lock.lock();
+		try {
+			Pondering pondering = results.remove(player);
+			Pondered hit = pondering == null ? null : pondering.moves.get(board.getHash());
+			if (hit != null && hit.move.target(board) != null) {
+				hits.increment();
+				player.adopt(hit.copy);
+				return hit.move;
+			}
+			misses.increment();
+			long budget = player.getBudgetMillis();
+			if (pondering == null || budget <= 0) {
+				return player.chooseMove(board);
+			}
+			player.setBudgetMillis(Math.max(budget - pondering.spentMillis, sliceOf(budget)));
+			try {
+				return player.chooseMove(board);
+			} finally {
+				player.setBudgetMillis(budget);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return how many turns were played from a pondered move.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Return how many turns had to be thought about from scratch.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Cancel any pondering and stop the pondering threads.
+	 */
+	public synchronized void shutdown() {
+		cancel();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Return the share of a turn's budget one pondered board, or the search
+	 * after a miss, is given at least.
+	 */
+	private static long sliceOf(long budgetMillis) {
+		return Math.max(1, budgetMillis / (BOARDS + 1));
+	}
+
+	/**
+	 * What one pondering of a player found, by board hash, and how long it
+	 * took in all.
+	 */
+	private static final class Pondering {
+		private final Map<Long, Pondered> moves = new ConcurrentHashMap<>();
+		private volatile long spentMillis;
+	}
+
+	/**
+	 * A move chosen while pondering, and the ponder copy that chose it.
+	 */
+	private static final class Pondered {
+		private final Move move;
+		private final Player copy;
+
+		private Pondered(Move move, Player copy) {
+			this.move = move;
+			this.copy = copy;
+		}
+	}
+
+	private ReentrantLock lockOf(Player player) {
+		return locks.computeIfAbsent(player, p -> new ReentrantLock());
+	}
+
+	/**
+	 * Return the BOARDS moves other than smashes with the best score delta
+	 * for goal on board, best first.
+	 */
+	private static List<Move> likelyMoves(Goal goal, Block board) {
+		List<Move> moves = new ArrayList<>();
+		List<Integer> deltas = new ArrayList<>();
+		for (Move move : MoveGenerator.generate(board)) {
+			if (move.getAction() == Action.SMASH) {
+				continue;
+			}
+			moves.add(move);
+			deltas.add(goal.scoreDelta(board, move.target(board), move.getAction()));
+		}
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < moves.size(); i++) {
+			order.add(i);
+		}
+		order.sort((a, b) -> deltas.get(b) - deltas.get(a));
+		List<Move> likely = new ArrayList<>(BOARDS);
+		for (int i = 0; i < Math.min(BOARDS, order.size()); i++) {
+			likely.add(moves.get(order.get(i)));
+		}
+		return likely;
+	}
+}
@@ -0,0 +1,165 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the QuadtreeBlobs class, which measures blobs directly
+ * on the leaves of a Block tree.
+ */
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Blob scoring on the leaves of a Block tree, without flattening it.
+ *
+ * Every leaf of the target colour is a node of a union-find structure,
+ * weighted by the number of unit cells it covers. Neighbouring leaves are
+ * found by walking the shared edges of sibling blocks: two blocks that share
+ * an edge only need to compare the children of each that lie along it. The
+ * cost therefore grows with the number of leaves rather than with
+ * 4^max_depth.
+ */
+final class QuadtreeBlobs {
+
+	// Child indices along each side of a block (see Quadrant).
+	private static final int UR = 0;
+	private static final int UL = 1;
+	private static final int LL = 2;
+	private static final int LR = 3;
+
+	private final byte target;
+	private final int maxDepth;
+	private final Map<Block, Integer> ids = new IdentityHashMap<>();
+	private int[] parent = new int[16];
+	private long[] weight = new long[16];
+
+	private QuadtreeBlobs(byte target, int maxDepth) {
+		this.target = target;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Return the number of unit cells in the largest blob of the given colour
+	 * index within the given block.
+	 */
+	static int largest(Block root, byte target) {
+		QuadtreeBlobs blobs = new QuadtreeBlobs(target, root.getMaxDepth());
+		blobs.addLeaves(root);
+		if (blobs.ids.isEmpty()) {
+			return 0;
+		}
+		blobs.connectWithin(root);
+
+		long max = 0;
+		for (int i = 0; i < blobs.ids.size(); i++) {
+			if (blobs.parent[i] == i) {
+				max = Math.max(max, blobs.weight[i]);
+			}
+		}
+		return (int)max;
+	}
+
+	private void addLeaves(Block b) {
+		if (b.hasChildren()) {
+			for (Block c : b.getChildren()) {
+				addLeaves(c);
+			}
+		} else if (b.getColorIndex() == target) {
+			int id = ids.size();
+			if (id == parent.length) {
+				parent = Arrays.copyOf(parent, id * 2);
+				weight = Arrays.copyOf(weight, id * 2);
+			}
+			parent[id] = id;
+			weight[id] = 1L << (2 * (maxDepth - b.getLevel()));
+			ids.put(b, id);
+		}
+	}
+
+	/**
+	 * Join the neighbouring target leaves inside b.
+	 */
+	private void connectWithin(Block b) {
+		if (!b.hasChildren()) {
+			return;
+		}
+		Block[] c = b.getChildren();
+		connectHorizontal(c[UL], c[UR]);
+		connectHorizontal(c[LL], c[LR]);
+		connectVertical(c[UL], c[LL]);
+		connectVertical(c[UR], c[LR]);
+		for (Block child : c) {
+			connectWithin(child);
+		}
+	}
+
+	/**
+	 * Join the target leaves along the edge between left and the block
+	 * directly to its right.
+	 */
+	private void connectHorizontal(Block left, Block right) {
+		boolean splitLeft = left.hasChildren();
+		boolean splitRight = right.hasChildren();
+		if (!splitLeft && !splitRight) {
+			join(left, right);
+		} else if (splitLeft && splitRight) {
+			connectHorizontal(left.getChildren()[UR], right.getChildren()[UL]);
+			connectHorizontal(left.getChildren()[LR], right.getChildren()[LL]);
+		} else if (splitLeft) {
+			connectHorizontal(left.getChildren()[UR], right);
+			connectHorizontal(left.getChildren()[LR], right);
+		} else {
+			connectHorizontal(left, right.getChildren()[UL]);
+			connectHorizontal(left, right.getChildren()[LL]);
+		}
+	}
+
+	/**
+	 * Join the target leaves along the edge between top and the block
+	 * directly below it.
+	 */
+	private void connectVertical(Block top, Block bottom) {
+		boolean splitTop = top.hasChildren();
+		boolean splitBottom = bottom.hasChildren();
+		if (!splitTop && !splitBottom) {
+			join(top, bottom);
+		} else if (splitTop && splitBottom) {
+			connectVertical(top.getChildren()[LL], bottom.getChildren()[UL]);
+			connectVertical(top.getChildren()[LR], bottom.getChildren()[UR]);
+		} else if (splitTop) {
+			connectVertical(top.getChildren()[LL], bottom);
+			connectVertical(top.getChildren()[LR], bottom);
+		} else {
+			connectVertical(top, bottom.getChildren()[UL]);
+			connectVertical(top, bottom.getChildren()[UR]);
+		}
+	}
+
+	private void join(Block a, Block b) {
+		if (a.getColorIndex() != target || b.getColorIndex() != target) {
+			return;
+		}
+		int ra = find(ids.get(a));
+		int rb = find(ids.get(b));
+		if (ra == rb) {
+			return;
+		}
+		if (weight[ra] < weight[rb]) {
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		parent[rb] = ra;
+		weight[ra] += weight[rb];
+	}
+
+	private int find(int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+}
@@ -0,0 +1,86 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the ScoreBoard class, which scores every player's goal
+ * of a game together.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The scores of a set of goals on one board, computed together and kept
+ * until the board's version changes.
+ *
+ * A refresh walks the board once, into a BitBoard, and scores every
+ * registered goal from that view; goals of the same class and target colour
+ * are only scored once. After that, the view, the players and the end of
+ * the game can ask for scores as often as they like without touching the
+ * board again.
+ *
+ * === Representation Invariants ===
+ * - scores holds a score for the cacheKey of every goal in goals whenever
+ *   scoredBoard != null
+ */
+public final class ScoreBoard {
+
+	private final List<Goal> goals = new ArrayList<>();
+	private final Map<Long, Integer> scores = new HashMap<>();
+
+	// The board and version the scores were computed for.
+	private Block scoredBoard;
+	private long scoredVersion;
+
+	/**
+	 * Add a goal to be scored with the others. Registering a goal again has
+	 * no effect.
+	 */
+	public synchronized void register(Goal goal) {
+		if (goal != null && !goals.contains(goal)) {
+			goals.add(goal);
+			scoredBoard = null;
+		}
+	}
+
+	public synchronized List<Goal> getGoals() {
+		return new ArrayList<>(goals);
+	}
+
+	/**
+	 * Return goal's score of the given board, refreshing every registered
+	 * goal's score first if the board has changed since they were computed.
+	 * A goal that was not registered is registered now.
+	 */
+	public synchronized int score(Goal goal, Block board) {
+		if (goal == null || board == null) {
+			return 0;
+		}
+		register(goal);
+		if (board != scoredBoard || board.getVersion() != scoredVersion
+			|| !scores.containsKey(goal.cacheKey())) {
+			refresh(board);
+		}
+		return scores.get(goal.cacheKey());
+	}
+
+	/**
+	 * Forget the computed scores, so the next call to score recomputes them.
+	 */
+	public synchronized void invalidate() {
+		scoredBoard = null;
+	}
+
+	private void refresh(Block board) {
+		scores.clear();
+		BitBoard bits = BitBoard.of(board);
+		for (Goal goal : goals) {
+			scores.computeIfAbsent(goal.cacheKey(), k -> goal.score(bits));
+		}
+		scoredBoard = board;
+		scoredVersion = board.getVersion();
+	}
+}
@@ -0,0 +1,206 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the ScoreCache class, a transposition table for goal
+ * scores.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of Goal scores keyed by board hash and goal.
+ *
+ * Boards are identified by their Zobrist hash (see Block.getHash), so the
+ * same board reached by different moves is only scored once. The cache is
+ * set-associative: a key maps to one set of WAYS entries, and a full set
+ * evicts with the CLOCK (second chance) policy. Sets are grouped into
+ * segments that are locked independently, so AI threads can share one cache.
+ *
+ * Two different boards with the same 64-bit hash would share an entry; with
+ * Zobrist hashing this is rare enough to ignore for scoring.
+ */
+public final class ScoreCache {
+
+	private static final int WAYS = 4;
+	private static final int SEGMENTS = 16;
+	private static final int MISSING = Integer.MIN_VALUE;
+
+	private static final ScoreCache SHARED = new ScoreCache(1 << 16);
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final int setsPerSegment;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Create a cache holding at least the given number of scores.
+	 */
+	public ScoreCache(int capacity) {
+		int sets = Math.max(1, capacity / (WAYS * SEGMENTS));
+		this.setsPerSegment = sets == 1 ? 1 : Integer.highestOneBit(sets - 1) << 1; // next power of two
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(setsPerSegment * WAYS, setsPerSegment);
+		}
+	}
+
+	/**
+	 * Return the cache shared by all players in this JVM.
+	 */
+	public static ScoreCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Return goal's score of the given board, computing and storing it if it
+	 * is not cached.
+	 */
+	public int score(Goal goal, Block board) {
+		long goalKey = goalKey(goal, board.getMaxDepth() - board.getLevel());
+		int score = get(board.getHash(), goalKey);
+		if (score == MISSING) {
+			score = goal.score(board);
+			put(board.getHash(), goalKey, score);
+		}
+		return score;
+	}
+
+	/**
+	 * Return goal's score of the given FlatBoard, computing and storing it if
+	 * it is not cached. Shares entries with equal Block boards.
+	 */
+	public int score(Goal goal, FlatBoard board) {
+		long goalKey = goalKey(goal, board.getMaxDepth());
+		int score = get(board.getHash(), goalKey);
+		if (score == MISSING) {
+			score = goal.score(board);
+			put(board.getHash(), goalKey, score);
+		}
+		return score;
+	}
+
+	// Boards of different depths can have equal hashes, so the depth is part
+	// of the key.
+	private static long goalKey(Goal goal, int depth) {
+		return goal.cacheKey() * 31 + depth;
+	}
+
+	private int get(long boardHash, long goalKey) {
+		long h = spread(boardHash, goalKey);
+		Segment seg = segments[(int)(h >>> 60) & (SEGMENTS - 1)];
+		int base = ((int)h & (setsPerSegment - 1)) * WAYS;
+
+		synchronized (seg) {
+			for (int i = base; i < base + WAYS; i++) {
+				if (seg.used[i] && seg.boards[i] == boardHash && seg.goals[i] == goalKey) {
+					seg.referenced[i] = true;
+					hits.increment();
+					return seg.scores[i];
+				}
+			}
+		}
+		misses.increment();
+		return MISSING;
+	}
+
+	private void put(long boardHash, long goalKey, int score) {
+		long h = spread(boardHash, goalKey);
+		Segment seg = segments[(int)(h >>> 60) & (SEGMENTS - 1)];
+		int set = (int)h & (setsPerSegment - 1);
+		int base = set * WAYS;
+
+		synchronized (seg) {
+			int slot = -1;
+			for (int i = base; i < base + WAYS && slot < 0; i++) {
+				if (!seg.used[i] || (seg.boards[i] == boardHash && seg.goals[i] == goalKey)) {
+					slot = i;
+				}
+			}
+			if (slot < 0) {
+				// CLOCK: clear reference bits until an unreferenced entry comes up.
+				int hand = seg.hands[set];
+				while (seg.referenced[base + hand]) {
+					seg.referenced[base + hand] = false;
+					hand = (hand + 1) % WAYS;
+				}
+				slot = base + hand;
+				seg.hands[set] = (hand + 1) % WAYS;
+				evictions.increment();
+			}
+			seg.used[slot] = true;
+			seg.referenced[slot] = false;
+			seg.boards[slot] = boardHash;
+			seg.goals[slot] = goalKey;
+			seg.scores[slot] = score;
+		}
+	}
+
+	private static long spread(long boardHash, long goalKey) {
+		long z = boardHash ^ (goalKey * 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		return z ^ (z >>> 33);
+	}
+
+	/**
+	 * Remove every entry. Statistics are kept.
+	 */
+	public void clear() {
+		for (Segment seg : segments) {
+			synchronized (seg) {
+				Arrays.fill(seg.used, false);
+			}
+		}
+	}
+
+	// ===== Statistics =====
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0 : (double)h / total;
+	}
+
+	public int getCapacity() {
+		return SEGMENTS * setsPerSegment * WAYS;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ScoreCache[capacity=%d hits=%d misses=%d evictions=%d hitRate=%.2f]",
+			getCapacity(), getHits(), getMisses(), getEvictions(), getHitRate());
+	}
+
+	private static final class Segment {
+		private final long[] boards;
+		private final long[] goals;
+		private final int[] scores;
+		private final boolean[] used;
+		private final boolean[] referenced;
+		private final int[] hands;
+
+		private Segment(int entries, int sets) {
+			boards = new long[entries];
+			goals = new long[entries];
+			scores = new int[entries];
+			used = new boolean[entries];
+			referenced = new boolean[entries];
+			hands = new int[sets];
+		}
+	}
+}
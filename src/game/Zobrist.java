@@ -0,0 +1,44 @@
+package game;
+
+/*
+ * === Module Description ===
+ *
+ * This file contains the Zobrist class, the keys used to hash boards.
+ */
+
+/**
+ * Zobrist-style keys for Blocky boards.
+ *
+ * The hash of a board is the XOR of key(level, region, colour) over all its
+ * leaves, where region is the index of the leaf among the 4^level blocks of
+ * its level in child order (its Morton index, see FlatBoard). Because XOR is
+ * its own inverse, a move updates the hash by XOR-ing out the keys of the
+ * leaves it removes and XOR-ing in the keys of the leaves it creates.
+ *
+ * Keys are computed by mixing their arguments rather than read from a table,
+ * so deep boards need no memory for them. Block and FlatBoard use the same
+ * keys, so equal boards have equal hashes in both engines.
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x9E3779B97F4A7C15L;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Return the key of a leaf of the given colour index at the given level
+	 * and region.
+	 */
+	public static long key(int level, long region, byte colorIndex) {
+		long x = ((long)level << 56) ^ (region << 8) ^ (colorIndex & 0xFF);
+		return mix(x + SEED);
+	}
+
+	// SplitMix64 finaliser.
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,12 +1,12 @@
 package players;
 
 import game.Action;
-import game.Game;
+import game.GameEngine;
 import game.Goal;
 
 public class HumanPlayer extends Player {
 
-	public HumanPlayer(int playerID, Game game, Goal goal) {
+	public HumanPlayer(int playerID, GameEngine game, Goal goal) {
 		super(playerID, game, goal);
 	}
 
@@ -0,0 +1,409 @@
+package players;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import game.Action;
+import game.Block;
+import game.GameEngine;
+import game.Goal;
+import game.Move;
+import game.MoveGenerator;
+import game.MoveRecord;
+
+/**
+ * A player that searches with Monte Carlo Tree Search (UCT) until a
+ * wall-clock budget runs out, then plays its most visited move.
+ *
+ * Every player's turns are part of the tree, in turn order. Each playout runs
+ * random (or greedy) moves for every player until the game's last turn and
+ * scores the final board with every player's goal, rewarding both the win and
+ * the score itself (see rewards). A node's statistics are kept for the player who made its
+ * move, so each player is assumed to play for their own win (max^n).
+ *
+ * The search is anytime: whatever has been found when the budget runs out,
+ * or the thinking thread is interrupted, is played. The subtree of the
+ * chosen move is kept, and if the board the opponents leave behind is one
+ * the tree has already reached, the search continues from there on the next
+ * turn.
+ *
+ * Moves are applied to one working copy of the board and reverted after each
+ * iteration, so an iteration costs about as much as the blocks it touches.
+ */
+public class MCTSPlayer extends Player {
+
+	/**
+	 * How moves are chosen during playouts.
+	 *
+	 * RANDOM:
+	 * A random block at a random level with a random action that applies to it.
+	 *
+	 * GREEDY:
+	 * The best, for the player to move, of a few RANDOM moves. Slower but
+	 * more realistic playouts.
+	 */
+	public enum Playout {
+		RANDOM,
+		GREEDY
+	}
+
+	private static final long DEFAULT_BUDGET_MILLIS = 1000;
+	private static final double EXPLORATION = Math.sqrt(2);
+	private static final int GREEDY_SAMPLES = 4;
+
+	private static final Action[] CHILD_MOVES = {
+		Action.UNSMASH,
+		Action.SWAP_VERTICALLY,
+		Action.SWAP_HORIZONTALLY,
+		Action.TURN_CW,
+		Action.TURN_CCW
+	};
+
+	private long budgetMillis;
+	private Playout playout;
+
+	// The subtree of the last move played, for reuse on the next turn.
+	private Node kept;
+	private long lastIterations;
+	private boolean lastReused;
+
+	// Each player's best playout score in the current search.
+	private int[] bestSeen;
+
+	public MCTSPlayer(int id, GameEngine game, Goal goal) {
+		this(id, game, goal, DEFAULT_BUDGET_MILLIS, Playout.RANDOM);
+	}
+
+	public MCTSPlayer(int id, GameEngine game, Goal goal, long budgetMillis, Playout playout) {
+		super(id, game, goal);
+		this.budgetMillis = budgetMillis;
+		this.playout = playout;
+	}
+
+	// ===== Getters / Setters =====
+
+	@Override
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	@Override
+	public void setBudgetMillis(long budgetMillis) {
+		this.budgetMillis = budgetMillis;
+	}
+
+	public Playout getPlayout() {
+		return playout;
+	}
+
+	public void setPlayout(Playout playout) {
+		this.playout = playout;
+	}
+
+	/**
+	 * Return the number of search iterations of the last move.
+	 */
+	public long getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * Return the number of final boards scored by the last move, one per
+	 * iteration.
+	 */
+	@Override
+	public long getLastNodes() {
+		return lastIterations;
+	}
+
+	/**
+	 * Return whether the last move continued the tree of the one before.
+	 */
+	public boolean wasLastTreeReused() {
+		return lastReused;
+	}
+
+	/**
+	 * Return a copy that searches a tree of its own: the copy starts without
+	 * a kept subtree, so pondering never grows or detaches this player's.
+	 */
+	@Override
+	public Player ponderCopy() {
+		MCTSPlayer copy = (MCTSPlayer)super.ponderCopy();
+		copy.kept = null;
+		return copy;
+	}
+
+	/**
+	 * Keep the copy's subtree of its chosen move, which was searched from the
+	 * board now being played.
+	 */
+	@Override
+	public void adopt(Player copy) {
+		super.adopt(copy);
+		MCTSPlayer mcts = (MCTSPlayer)copy;
+		kept = mcts.kept;
+		lastIterations = mcts.lastIterations;
+		lastReused = mcts.lastReused;
+	}
+
+	// ===== Search =====
+
+	@Override
+	public Move chooseMove(Block board) {
+		long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+		List<Goal> goals = new ArrayList<>();
+		for (Player p : game.getPlayers()) {
+			goals.add(p.getGoal());
+		}
+		int mover = turnIndex();
+		int turn = nextTurnToPlay();
+		bestSeen = new int[goals.size()];
+
+		Node root = reuse(board.getHash(), mover);
+		lastReused = root != null;
+		if (root == null) {
+			root = new Node(null, null, -1, mover, board.getHash());
+		}
+		root.parent = null;
+
+		Block work = board.copyBlock(board);
+		Deque<MoveRecord> applied = new ArrayDeque<>();
+		long iterations = 0;
+		do {
+			iterate(root, work, goals, turn, applied);
+			while (!applied.isEmpty()) {
+				applied.pop().revert(work);
+			}
+			iterations++;
+		} while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted());
+		lastIterations = iterations;
+
+		Node best = null;
+		for (Node child : root.children) {
+			if (best == null || child.visits > best.visits) {
+				best = child;
+			}
+		}
+		kept = best;
+		return best == null ? null : best.move;
+	}
+
+	/**
+	 * Run one selection, expansion, playout and backpropagation from root,
+	 * pushing every move applied to work onto applied.
+	 */
+	private void iterate(Node root, Block work, List<Goal> goals, int turn, Deque<MoveRecord> applied) {
+		int maxTurns = game.getMaxTurns();
+		Node node = root;
+
+		// selection
+		while (turn < maxTurns && node.untried != null && node.untried.isEmpty()
+			&& !node.children.isEmpty()) {
+			Node child = node.select();
+			MoveRecord record = child.move.apply(work);
+			if (record == null) {
+				break;
+			}
+			applied.push(record);
+			node = child;
+			turn++;
+		}
+
+		// expansion
+		if (turn < maxTurns) {
+			if (node.untried == null) {
+				node.untried = MoveGenerator.generate(work);
+				Collections.shuffle(node.untried, random);
+			}
+			if (!node.untried.isEmpty()) {
+				Move move = node.untried.remove(node.untried.size() - 1);
+				MoveRecord record = move.apply(work);
+				if (record != null) {
+					applied.push(record);
+					Node child = new Node(node, move, node.toMove, (node.toMove + 1) % goals.size(),
+						work.getHash());
+					node.children.add(child);
+					node = child;
+					turn++;
+				}
+			}
+		}
+
+		// playout
+		int toMove = node.toMove;
+		for (; turn < maxTurns; turn++) {
+			Move move = playout == Playout.GREEDY
+				? greedyMove(work, goals.get(toMove))
+				: randomMove(work);
+			if (move == null) {
+				break;
+			}
+			MoveRecord record = move.apply(work);
+			if (record != null) {
+				applied.push(record);
+			}
+			toMove = (toMove + 1) % goals.size();
+		}
+
+		// backpropagation
+		double[] rewards = rewards(work, goals);
+		for (Node n = node; n != null; n = n.parent) {
+			n.visits++;
+			if (n.player >= 0) {
+				n.reward += rewards[n.player];
+			}
+		}
+	}
+
+	/**
+	 * Return each player's reward for the given final board. Half of it is
+	 * for winning (split evenly between players tied for the best score) and
+	 * half is the player's score relative to the best they have reached in
+	 * any playout of this search, so that solo games and hopeless positions
+	 * still rank moves.
+	 */
+	private double[] rewards(Block board, List<Goal> goals) {
+		int[] scores = new int[goals.size()];
+		int best = Integer.MIN_VALUE;
+		int winners = 0;
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = goals.get(i).score(board);
+			bestSeen[i] = Math.max(bestSeen[i], scores[i]);
+			if (scores[i] > best) {
+				best = scores[i];
+				winners = 1;
+			} else if (scores[i] == best) {
+				winners++;
+			}
+		}
+		double[] rewards = new double[scores.length];
+		for (int i = 0; i < scores.length; i++) {
+			double win = scores[i] == best ? 1.0 / winners : 0;
+			double relative = bestSeen[i] > 0 ? (double)scores[i] / bestSeen[i] : 0;
+			rewards[i] = (win + relative) / 2;
+		}
+		return rewards;
+	}
+
+	/**
+	 * Return a random legal move of the board, or null if it has none. Walks
+	 * down to a random level through random children.
+	 */
+	private Move randomMove(Block board) {
+		int level = random.nextInt(board.getMaxDepth() + 1);
+		Block b = board;
+		while (b.hasChildren() && b.getLevel() < level) {
+			b = b.getChildren()[random.nextInt(4)];
+		}
+		if (!b.hasChildren()) {
+			if (b.getLevel() < b.getMaxDepth()) {
+				return Move.of(b, Action.SMASH);
+			}
+			if (b == board) {
+				return null;
+			}
+			// unit cells can't be smashed; move their parent instead
+			b = b.getParent();
+		}
+		return Move.of(b, CHILD_MOVES[random.nextInt(CHILD_MOVES.length)]);
+	}
+
+	/**
+	 * Return the best of a few random moves for the given goal.
+	 */
+	private Move greedyMove(Block board, Goal goal) {
+		Move best = null;
+		int bestScore = Integer.MIN_VALUE;
+		for (int i = 0; i < GREEDY_SAMPLES; i++) {
+			Move move = randomMove(board);
+			if (move == null) {
+				return null;
+			}
+			MoveRecord record = move.apply(board);
+			if (record == null) {
+				continue;
+			}
+			int score = goal.score(board);
+			record.revert(board);
+			if (score > bestScore) {
+				bestScore = score;
+				best = move;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Return the node of the kept subtree whose board has the given hash and
+	 * is for the given player to move, searching breadth first through as
+	 * many plies as there are players. Return null if there is none.
+	 */
+	private Node reuse(long hash, int mover) {
+		if (kept == null) {
+			return null;
+		}
+		List<Node> level = List.of(kept);
+		for (int ply = 0; ply < game.getPlayers().size() && !level.isEmpty(); ply++) {
+			List<Node> next = new ArrayList<>();
+			for (Node n : level) {
+				if (n.hash == hash && n.toMove == mover) {
+					return n;
+				}
+				next.addAll(n.children);
+			}
+			level = next;
+		}
+		return null;
+	}
+
+	/**
+	 * A node of the search tree: the board after move, with the statistics of
+	 * the playouts through it.
+	 *
+	 * === Representation Invariants ===
+	 * - player is the index of the player who made move, or -1 at the root
+	 * - toMove is the index of the player to move on this node's board
+	 * - untried is null until the node is expanded for the first time
+	 */
+	private static final class Node {
+		private Node parent;
+		private final Move move;
+		private final int player;
+		private final int toMove;
+		private final long hash;
+		private final List<Node> children = new ArrayList<>();
+		private List<Move> untried;
+		private int visits;
+		private double reward;
+
+		private Node(Node parent, Move move, int player, int toMove, long hash) {
+			this.parent = parent;
+			this.move = move;
+			this.player = player;
+			this.toMove = toMove;
+			this.hash = hash;
+		}
+
+		/**
+		 * Return the child with the highest UCB1 value.
+		 */
+		private Node select() {
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			double logVisits = Math.log(visits);
+			for (Node child : children) {
+				double value = child.reward / child.visits
+					+ EXPLORATION * Math.sqrt(logVisits / child.visits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+			return best;
+		}
+	}
+}
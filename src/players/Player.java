@@ -3,28 +3,32 @@ package players;
 
 import game.Action;
 import game.Block;
-import game.Game;
+import game.CopyableRandom;
+import game.GameEngine;
 import game.Goal;
+import game.Move;
 /* === Module Description ===
 
 This file contains the player class hierarchy.
  */
 
-public abstract class Player {
+public abstract class Player implements Cloneable {
 
 	protected int playerID; // player 1, 2, 3,or 4
 	protected Goal goal;
-	protected Game game;
+	protected GameEngine game;
+	// Seeded from the game's seed, so a replayed game makes the same choices.
+	protected CopyableRandom random;
 
-	public Player(int playerID, Game game, Goal goal) {
+	public Player(int playerID, GameEngine game, Goal goal) {
 		this.playerID = playerID;
 		this.game = game;
 		this.goal = goal;
+		this.random = game.newRandom();
 	}
 
 	public int getScore() {
-		Block board = game.getBoard();
-		return goal.score(board);
+		return game.getScoreBoard().score(goal, game.getBoard());
 	}
 
 	protected Block getBoard() {
@@ -43,21 +47,130 @@ public abstract class Player {
 		return playerID;
 	}
 
-	public abstract Action makeMove();
+	/**
+	 * Choose a move on the game's board, select its block as the game's
+	 * active block and return its action. If chooseMove finds no move, a
+	 * random action is returned and the active block is left as it was.
+	 */
+	public Action makeMove() {
+		Block board = game.getBoard();
+		Move move = chooseMove(board);
+		Block target = move == null ? null : move.target(board);
+		if (target == null) {
+			return randomAction();
+		}
+		game.setActiveBlock(target);
+		return move.getAction();
+	}
+
+	/**
+	 * Return the move this player would make on the given board, or null if
+	 * it has none.
+	 *
+	 * board is a top-level block with the game's position, but need not be
+	 * the game's own board: Game passes a private snapshot and calls this on
+	 * its think thread (see AIThinker), so implementations must not touch the
+	 * game's board or active block. They may change board while thinking if
+	 * they restore it before returning. Long searches should stop early when
+	 * the thread is interrupted; the move is then thrown away.
+	 */
+	public Move chooseMove(Block board) {
+		return null;
+	}
+
+	/**
+	 * Return how long chooseMove may think, in milliseconds, or 0 if this
+	 * player does a fixed amount of work per move instead.
+	 */
+	public long getBudgetMillis() {
+		return 0;
+	}
+
+	/**
+	 * Set how long chooseMove may think. Players without a time budget
+	 * ignore it.
+	 */
+	public void setBudgetMillis(long budgetMillis) {
+	}
+
+	/**
+	 * Return a copy of this player for thinking about a board that may never
+	 * be played (see Ponderer). The copy draws from a copy of this player's
+	 * generator and records its search in its own fields, so nothing it does
+	 * changes this player. If its board is played, adopt makes its choice
+	 * this player's own.
+	 *
+	 * Subclasses whose searches leave mutable state behind must copy it here.
+	 */
+	public Player ponderCopy() {
+		try {
+			Player copy = (Player)super.clone();
+			copy.random = random.copy();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Take over the state copy, made with ponderCopy, was left in by its
+	 * chooseMove, as if this player had chosen that move itself. A replayed
+	 * game then makes the same choices whether or not the move was pondered.
+	 */
+	public void adopt(Player copy) {
+		random = copy.random;
+	}
+
+	/**
+	 * Return how many boards the last chooseMove evaluated, or 0 if this
+	 * player does not count them.
+	 */
+	public long getLastNodes() {
+		return 0;
+	}
+
+	/**
+	 * Return this player's index in the game's turn order.
+	 */
+	protected int turnIndex() {
+		return game.getPlayers().indexOf(this);
+	}
+
+	/**
+	 * Return the number of turns played when this player next moves: the
+	 * current count on this player's turn, more while others are still to
+	 * move before it (e.g. when thinking ahead, see Ponderer).
+	 */
+	protected int nextTurnToPlay() {
+		int n = game.getPlayers().size();
+		return game.getTurnsPlayed() + (turnIndex() - game.getPlayerTurn() + n) % n;
+	}
 
 	protected int randomLevel() {
-		return (int)(Math.random() * (game.getBoard().getMaxDepth() + 1));
+		return randomLevel(game.getBoard());
+	}
+
+	protected int randomLevel(Block board) {
+		return random.nextInt(board.getMaxDepth() + 1);
 	}
 
+	/**
+	 * Return a random action on a block. UNDO, which is not one, is never
+	 * returned.
+	 */
 	protected Action randomAction() {
 		Action[] list = Action.values();
-		return list[(int)(Math.random() * list.length)];
+		return list[random.nextInt(Action.UNDO.ordinal())];
 	}
 
 	protected Block randomBlock() {
-		int x = (int)(Math.random() * game.getBoard().getSize());
-		int y = (int)(Math.random() * game.getBoard().getSize());
-		int level = randomLevel();
-		return game.getBoard().getSelectedBlock(x, y, level);
+		return randomBlock(game.getBoard());
+	}
+
+	protected Block randomBlock(Block board) {
+		int x = random.nextInt(board.getSize());
+		int y = random.nextInt(board.getSize());
+		int level = randomLevel(board);
+		return board.getSelectedBlock(x, y, level);
 	}
 }
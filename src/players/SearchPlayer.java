@@ -0,0 +1,387 @@
+package players;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.Block;
+import game.GameEngine;
+import game.Goal;
+import game.Move;
+import game.MoveGenerator;
+import game.MoveRecord;
+import game.ScoreCache;
+
+/**
+ * A player that searches several turns ahead through the turn order, with
+ * iterative deepening under a wall-clock budget.
+ *
+ * A board is evaluated for player i as their score minus the best score of
+ * any other player. In PARANOID mode every opponent is assumed to play
+ * against this player, which makes the search two-sided, so alpha-beta
+ * pruning applies. In MAXN mode every player maximises their own
+ * evaluation; there is no safe pruning then, so it searches less deeply.
+ *
+ * The full move list of a board is too wide to search beyond one turn, so
+ * only the root is searched in full at depth 1. Deeper iterations search the
+ * ROOT_BEAM best root moves of the previous iteration. Every other node
+ * samples some of its moves, orders them by their immediate evaluation for
+ * the player to move, and searches the BEAM best. The best move found at each
+ * board in the previous iteration is always tried first.
+ *
+ * Moves are applied to one working copy of the board and reverted after
+ * being searched.
+ */
+public class SearchPlayer extends Player {
+
+	/**
+	 * How the other players are assumed to play.
+	 *
+	 * PARANOID:
+	 * Every opponent minimises this player's evaluation.
+	 *
+	 * MAXN:
+	 * Every player maximises their own evaluation.
+	 */
+	public enum Mode {
+		PARANOID,
+		MAXN
+	}
+
+	private static final long DEFAULT_BUDGET_MILLIS = 1000;
+	private static final int MAX_DEPTH = 16;
+	private static final int ROOT_BEAM = 24;
+	private static final int BEAM = 6;
+	private static final int SAMPLE = 32;
+
+	private long budgetMillis;
+	private Mode mode;
+
+	// State of the current search.
+	private Block work;
+	private List<Goal> goals;
+	private int me;
+	private int maxTurns;
+	private long deadline;
+	private long nodes;
+	private Map<Long, Move> bestMoves = new HashMap<>();
+
+	// Statistics of the last search.
+	private int lastDepth;
+	private long lastNodes;
+
+	public SearchPlayer(int id, GameEngine game, Goal goal) {
+		this(id, game, goal, DEFAULT_BUDGET_MILLIS, Mode.PARANOID);
+	}
+
+	public SearchPlayer(int id, GameEngine game, Goal goal, long budgetMillis, Mode mode) {
+		super(id, game, goal);
+		this.budgetMillis = budgetMillis;
+		this.mode = mode;
+	}
+
+	// ===== Getters / Setters =====
+
+	@Override
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	@Override
+	public void setBudgetMillis(long budgetMillis) {
+		this.budgetMillis = budgetMillis;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Return the depth, in turns, of the last completed iteration of the last
+	 * search.
+	 */
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	/**
+	 * Return the number of boards evaluated by the last search.
+	 */
+	@Override
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	@Override
+	public Player ponderCopy() {
+		SearchPlayer copy = (SearchPlayer)super.ponderCopy();
+		copy.bestMoves = new HashMap<>();
+		return copy;
+	}
+
+	@Override
+	public void adopt(Player copy) {
+		super.adopt(copy);
+		SearchPlayer search = (SearchPlayer)copy;
+		lastDepth = search.lastDepth;
+		lastNodes = search.lastNodes;
+	}
+
+	// ===== Search =====
+
+	@Override
+	public Move chooseMove(Block board) {
+		deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+		goals = new ArrayList<>();
+		for (Player p : game.getPlayers()) {
+			goals.add(p.getGoal());
+		}
+		me = turnIndex();
+		maxTurns = game.getMaxTurns();
+		int turn = nextTurnToPlay();
+		work = board.copyBlock(board);
+		nodes = 0;
+		bestMoves.clear();
+		lastDepth = 0;
+
+		List<Move> rootMoves = MoveGenerator.generate(work);
+		if (rootMoves.isEmpty()) {
+			work = null;
+			return null;
+		}
+
+		int remaining = Math.max(1, maxTurns - turn);
+		for (int depth = 1; depth <= Math.min(MAX_DEPTH, remaining); depth++) {
+			try {
+				rootMoves = searchRoot(rootMoves, depth, turn);
+				lastDepth = depth;
+			} catch (Timeout e) {
+				break;
+			}
+		}
+		lastNodes = nodes;
+		work = null;
+		return rootMoves.get(0);
+	}
+
+	/**
+	 * Search the root moves to the given depth and return them ordered from
+	 * best to worst. Moves outside the beam keep their previous order after
+	 * the searched ones.
+	 */
+	private List<Move> searchRoot(List<Move> moves, int depth, int turn) {
+		int width = depth == 1 ? moves.size() : Math.min(ROOT_BEAM, moves.size());
+		double[] values = new double[width];
+		double alpha = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < width; i++) {
+			// depth 1 always completes, so there is a move to play
+			if (depth > 1) {
+				checkTime();
+			}
+			MoveRecord record = moves.get(i).apply(work);
+			if (record == null) {
+				values[i] = Double.NEGATIVE_INFINITY;
+				continue;
+			}
+			try {
+				int next = (me + 1) % goals.size();
+				values[i] = mode == Mode.PARANOID
+					? paranoid(depth - 1, turn + 1, next, alpha, Double.POSITIVE_INFINITY)
+					: maxn(depth - 1, turn + 1, next)[me];
+			} finally {
+				record.revert(work);
+			}
+			alpha = Math.max(alpha, values[i]);
+		}
+
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < width; i++) {
+			order.add(i);
+		}
+		// stable, so equal values keep the previous iteration's order
+		order.sort(Comparator.comparingDouble(i -> -values[i]));
+		List<Move> ordered = new ArrayList<>(moves.size());
+		for (int i : order) {
+			ordered.add(moves.get(i));
+		}
+		ordered.addAll(moves.subList(width, moves.size()));
+		return ordered;
+	}
+
+	/**
+	 * Return this player's evaluation of the working board after searching
+	 * depth more turns, starting with player mover, with alpha-beta bounds.
+	 */
+	private double paranoid(int depth, int turn, int mover, double alpha, double beta) {
+		if (depth == 0 || turn >= maxTurns) {
+			return evaluate()[me];
+		}
+		checkTime();
+		long hash = work.getHash();
+		boolean maximising = mover == me;
+		int next = (mover + 1) % goals.size();
+		Move bestMove = null;
+		double best = maximising ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+
+		for (Move move : candidates(mover)) {
+			MoveRecord record = move.apply(work);
+			if (record == null) {
+				continue;
+			}
+			double value;
+			try {
+				value = paranoid(depth - 1, turn + 1, next, alpha, beta);
+			} finally {
+				record.revert(work);
+			}
+			if (maximising ? value > best : value < best) {
+				best = value;
+				bestMove = move;
+			}
+			if (maximising) {
+				alpha = Math.max(alpha, value);
+			} else {
+				beta = Math.min(beta, value);
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+		if (bestMove == null) {
+			return evaluate()[me];
+		}
+		bestMoves.put(hash, bestMove);
+		return best;
+	}
+
+	/**
+	 * Return every player's evaluation of the working board after searching
+	 * depth more turns, starting with player mover, when each player
+	 * maximises their own.
+	 */
+	private double[] maxn(int depth, int turn, int mover) {
+		if (depth == 0 || turn >= maxTurns) {
+			return evaluate();
+		}
+		checkTime();
+		long hash = work.getHash();
+		int next = (mover + 1) % goals.size();
+		Move bestMove = null;
+		double[] best = null;
+
+		for (Move move : candidates(mover)) {
+			MoveRecord record = move.apply(work);
+			if (record == null) {
+				continue;
+			}
+			double[] values;
+			try {
+				values = maxn(depth - 1, turn + 1, next);
+			} finally {
+				record.revert(work);
+			}
+			if (best == null || values[mover] > best[mover]) {
+				best = values;
+				bestMove = move;
+			}
+		}
+		if (bestMove == null) {
+			return evaluate();
+		}
+		bestMoves.put(hash, bestMove);
+		return best;
+	}
+
+	/**
+	 * Return the moves to search for mover on the working board: a sample of
+	 * its moves, plus the best move found here before, ordered by their
+	 * immediate value to mover, cut to BEAM.
+	 */
+	private List<Move> candidates(int mover) {
+		List<Move> all = MoveGenerator.generate(work);
+		if (all.size() > SAMPLE) {
+			Collections.shuffle(all, random);
+			all = new ArrayList<>(all.subList(0, SAMPLE));
+		}
+		Move previous = bestMoves.get(work.getHash());
+		if (previous != null) {
+			all.add(0, previous);
+		}
+
+		double[] values = new double[all.size()];
+		for (int i = 0; i < all.size(); i++) {
+			MoveRecord record = all.get(i).apply(work);
+			if (record == null) {
+				values[i] = Double.NEGATIVE_INFINITY;
+				continue;
+			}
+			double[] eval = evaluate();
+			record.revert(work);
+			values[i] = mode == Mode.PARANOID && mover != me ? -eval[me] : eval[mover];
+		}
+		if (previous != null) {
+			values[0] = Double.POSITIVE_INFINITY;
+		}
+
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < all.size(); i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparingDouble(i -> -values[i]));
+		List<Move> beam = new ArrayList<>(BEAM);
+		for (int i = 0; i < Math.min(BEAM, order.size()); i++) {
+			beam.add(all.get(order.get(i)));
+		}
+		return beam;
+	}
+
+	/**
+	 * Return each player's evaluation of the working board: their score minus
+	 * the best score of any other player, or just their score when playing
+	 * alone.
+	 */
+	private double[] evaluate() {
+		nodes++;
+		int n = goals.size();
+		int[] scores = new int[n];
+		for (int i = 0; i < n; i++) {
+			scores[i] = ScoreCache.shared().score(goals.get(i), work);
+		}
+		double[] eval = new double[n];
+		for (int i = 0; i < n; i++) {
+			int bestOther = 0;
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					bestOther = Math.max(bestOther, scores[j]);
+				}
+			}
+			eval[i] = scores[i] - bestOther;
+		}
+		return eval;
+	}
+
+	private void checkTime() {
+		if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+			throw new Timeout();
+		}
+	}
+
+	/**
+	 * Thrown to abandon an iteration when the budget runs out or the thread
+	 * is interrupted. Every applied move is reverted on the way out.
+	 */
+	private static final class Timeout extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private Timeout() {
+			super(null, null, false, false);
+		}
+	}
+}
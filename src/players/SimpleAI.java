@@ -4,25 +4,21 @@ import game.*;
 
 public class SimpleAI extends Player {
 
-	public SimpleAI(int id, Game game, Goal goal) {
+	public SimpleAI(int id, GameEngine game, Goal goal) {
 		super(id, game, goal);
 	}
 
 	@Override
-	public Action makeMove() {
+	public Move chooseMove(Block board) {
 
 		Block block = null;
 		for (int attempts = 0; attempts < 30; attempts++) {
-			block = randomBlock();
+			block = randomBlock(board);
 			if (block != null) break;
 		}
 
 		if (block == null) return null;
 
-		Action action = randomAction();
-
-		game.activeBlock = block;
-
-		return action;
+		return Move.of(block, randomAction());
 	}
 }
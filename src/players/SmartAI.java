@@ -1,72 +1,79 @@
 package players;
 
-import java.util.Random;
+import java.util.List;
 
 import game.Action;
 import game.Block;
-import game.Game;
+import game.FlatBlock;
+import game.FlatBoard;
+import game.GameEngine;
 import game.Goal;
+import game.Move;
+import game.MoveGenerator;
+import game.ScoreCache;
 
 public class SmartAI extends Player {
 
 	private static final int TRIALS = 12;
-	private final Random rand = new Random();
+	private long lastNodes;
 
-	public SmartAI(int id, Game game, Goal goal) {
+	public SmartAI(int id, GameEngine game, Goal goal) {
 		super(id, game, goal);
 	}
 
 	@Override
-	public Action makeMove() {
-		Block board = game.getBoard();
-
-		Action bestAction = null;
-		int bestScore = -1;
+	public Move chooseMove(Block board) {
+		List<Move> moves = MoveGenerator.generate(board);
+		if (moves.isEmpty()) {
+			return null;
+		}
 
-		// 실제 보드에서 적용할 좌표/레벨
-		int bestX = -1;
-		int bestY = -1;
-		int bestLevel = -1;
+		// Trials run in place on a FlatBoard and are undone by the inverse
+		// action, or for smash and unsmash by putting back the target's
+		// cells, so each costs only the target's range.
+		FlatBoard work = FlatBoard.fromBlock(board);
 
-		int boardSize = board.getRect().width;
-		int maxLevel = board.getMaxDepth();
+		Move bestMove = null;
+		int bestScore = -1;
+		lastNodes = 0;
 
 		for (int i = 0; i < TRIALS; i++) {
-			Block boardCopy = board.copyBlock(board);
-
-			int level = rand.nextInt(maxLevel + 1);
-			int x = rand.nextInt(boardSize);
-			int y = rand.nextInt(boardSize);
-
-			Block targetOnCopy = boardCopy.getSelectedBlock(x, y, level);
-			if (targetOnCopy == null) {
+			Move move = moves.get(random.nextInt(moves.size()));
+			Action action = move.getAction();
+			FlatBlock target = move.target(work);
+			if (target == null) {
+				continue;
+			}
+			byte[] saved = action.inverse() == null ? target.saveCells() : null;
+			if (!action.runAction(target)) {
 				continue;
 			}
 
-			Action action = randomAction();
-
-			action.runAction(targetOnCopy);
-			boardCopy.updateBlockLocations();
-
-			int score = goal.score(boardCopy);
+			int score = ScoreCache.shared().score(goal, work);
+			if (saved != null) {
+				target.restoreCells(saved);
+			} else {
+				action.inverse().runAction(target);
+			}
+			lastNodes++;
 
 			if (score > bestScore) {
 				bestScore = score;
-				bestAction = action;
-				bestX = x;
-				bestY = y;
-				bestLevel = level;
+				bestMove = move;
 			}
 		}
 
-		if (bestAction != null && bestX >= 0) {
-			Block realTarget = board.getSelectedBlock(bestX, bestY, bestLevel);
-			if (realTarget != null) {
-				game.activeBlock = realTarget;
-				return bestAction;
-			}
-		}
+		return bestMove;
+	}
 
-		return randomAction();
+	@Override
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	@Override
+	public void adopt(Player copy) {
+		super.adopt(copy);
+		lastNodes = ((SmartAI)copy).lastNodes;
 	}
 }
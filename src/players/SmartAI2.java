@@ -1,78 +1,142 @@
 package players;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import game.Action;
 import game.Block;
-import game.Game;
+import game.GameEngine;
 import game.Goal;
-
+import game.Move;
+import game.MoveGenerator;
+import game.ScoreCache;
+
+/**
+ * A player that looks one move ahead: it tries every legal move of the board
+ * (see MoveGenerator) and plays the best scoring one.
+ *
+ * The moves are scored in parallel on a ForkJoinPool (the common pool unless
+ * one is given). Each task applies its moves in place to its own working
+ * copy of the board and reverts them after scoring, so a move costs about as
+ * much as the subtree it touches. A move is scored with Goal.scoreDelta from
+ * the score of the current board, so goals that only rescan the moved block
+ * skip most of the board. Ties go to the move generated first, so the
+ * chosen move does not depend on thread scheduling.
+ */
 public class SmartAI2 extends Player {
 
-	private final Random random = new Random();
+	// The fewest moves scored by one task; each task copies the board once.
+	private static final int MIN_BATCH = 8;
+
+	private ForkJoinPool pool;
+	private long lastNodes;
+
+	public SmartAI2(int id, GameEngine game, Goal goal) {
+		this(id, game, goal, ForkJoinPool.commonPool());
+	}
 
-	public SmartAI2(int id, Game game, Goal goal) {
+	public SmartAI2(int id, GameEngine game, Goal goal, ForkJoinPool pool) {
 		super(id, game, goal);
+		this.pool = pool;
 	}
 
-	@Override
-	public Action makeMove() {
+	public ForkJoinPool getPool() {
+		return pool;
+	}
 
-		Block board = game.getBoard();
-		Action[] actions = Action.values();
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
 
-		Action bestAction = null;
-		int bestX = -1;
-		int bestY = -1;
-		int bestLevel = -1;
-		int bestScore = -1;
+	@Override
+	public long getLastNodes() {
+		return lastNodes;
+	}
 
-		int boardSize = board.getRect().width;
-		int maxLevel = board.getMaxDepth();
+	@Override
+	public void adopt(Player copy) {
+		super.adopt(copy);
+		lastNodes = ((SmartAI2)copy).lastNodes;
+	}
 
-		for (int i = 0; i < 60; i++) {
+	@Override
+	public Move chooseMove(Block board) {
+		List<Move> moves = MoveGenerator.generate(board);
 
-			int level = random.nextInt(maxLevel + 1);
-			int x = random.nextInt(boardSize);
-			int y = random.nextInt(boardSize);
+		int[] scores = new int[moves.size()];
+		int base = ScoreCache.shared().score(goal, board);
+		int batch = Math.max(MIN_BATCH, moves.size() / (pool.getParallelism() * 4));
+		pool.invoke(new Evaluate(board, base, moves, scores, 0, moves.size(), batch));
+		lastNodes = moves.size();
 
-			Block realCandidate = board.getSelectedBlock(x, y, level);
-			if (realCandidate == null) {
-				continue;
+		int best = -1;
+		int bestScore = -1;
+		for (int i = 0; i < scores.length; i++) {
+			if (scores[i] > bestScore) {
+				bestScore = scores[i];
+				best = i;
 			}
+		}
 
-			for (Action action : actions) {
-
-				Block boardCopy = board.copyBlock(board);
-
-				Block targetOnCopy = boardCopy.getSelectedBlock(x, y, level);
-				if (targetOnCopy == null) {
-					continue;
-				}
-
-				action.runAction(targetOnCopy);
-				boardCopy.updateBlockLocations();
-
-				int score = goal.score(boardCopy);
+		return best >= 0 ? moves.get(best) : null;
+	}
 
-				if (score > bestScore) {
-					bestScore = score;
-					bestAction = action;
-					bestX = x;
-					bestY = y;
-					bestLevel = level;
-				}
-			}
+	/**
+	 * Score the moves in [from, to), splitting the range in half until it is
+	 * at most batch long. Each batch copies the board once, then scores its
+	 * moves on that copy one at a time as base plus the move's score delta.
+	 *
+	 * A smash would colour its new blocks from the copy's generator, which
+	 * revert does not rewind, so each smash draws them from a generator
+	 * seeded by the board's hash and the move's path instead. Every smash
+	 * then sees the same colours however the moves are split into batches,
+	 * and the chosen move does not depend on the pool's size.
+	 */
+	private final class Evaluate extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Block board;
+		private final int base;
+		private final List<Move> moves;
+		private final int[] scores;
+		private final int from;
+		private final int to;
+		private final int batch;
+
+		private Evaluate(Block board, int base, List<Move> moves, int[] scores, int from, int to, int batch) {
+			this.board = board;
+			this.base = base;
+			this.moves = moves;
+			this.scores = scores;
+			this.from = from;
+			this.to = to;
+			this.batch = batch;
 		}
 
-		if (bestAction != null && bestX >= 0) {
-			Block target = board.getSelectedBlock(bestX, bestY, bestLevel);
-			if (target != null) {
-				game.activeBlock = target;
-				return bestAction;
+		@Override
+		protected void compute() {
+			if (to - from <= batch) {
+				Block work = board.copyBlock(board);
+				for (int i = from; i < to; i++) {
+					Move move = moves.get(i);
+					Block target = move.target(work);
+					if (target == null) {
+						scores[i] = -1;
+						continue;
+					}
+					SplittableRandom colours = move.getAction() == Action.SMASH
+						? new SplittableRandom(board.getHash() * 31 + Arrays.hashCode(move.getPath()))
+						: null;
+					scores[i] = base + goal.scoreDelta(work, target, move.getAction(), colours);
+				}
+				return;
 			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new Evaluate(board, base, moves, scores, from, mid, batch),
+				new Evaluate(board, base, moves, scores, mid, to, batch));
 		}
-
-		return randomAction();
 	}
 }
@@ -1,8 +1,21 @@
 package tests;
 
 import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.Stack;
 
+import game.Action;
 import game.Block;
+import game.BoardGenerator;
+import game.BoardSnapshot;
+import game.FlatBoard;
+import game.Move;
+import game.MoveGenerator;
+import game.MoveRecord;
+import game.Game;
 
 /**
  * Comprehensive test suite for Block.java
@@ -25,9 +38,16 @@ public class BlockTest {
         testSwap();
         testRotate();
         testFlatten();
+        testFlattenIndices();
+        testIncrementalFlatten();
         testGetSelectedBlock();
         testUpdateBlockLocations();
         testCopyBlock();
+        testSnapshots();
+        testMoveRecords();
+        testMoveGenerator();
+        testHash();
+        testBoardGenerator();
 
         // Print summary
         System.out.println("\n=== Test Summary ===");
@@ -348,6 +368,72 @@ public class BlockTest {
         assertEquals("LR quadrant is YELLOW", Color.YELLOW, grid2[1][1]);
     }
 
+    // ===== FLATTEN INDICES TESTS =====
+
+    private static void testFlattenIndices() {
+        System.out.println("\n--- Testing flattenIndices() ---");
+
+        Block smashed = new Block(new Point(0, 0), 2, null, 100);
+        smashed.smash();
+        smashed.getChildren()[0].setColor(Game.REAL_RED); // UR
+        smashed.getChildren()[1].setColor(Game.PACIFIC_POINT); // UL
+        smashed.getChildren()[2].setColor(Game.OLD_OLIVE); // LL
+        smashed.getChildren()[3].setColor(Color.MAGENTA); // LR, not in COLOR_LIST
+
+        byte[][] grid = smashed.flattenIndices();
+        assertEquals("Index grid dimensions (rows)", 4, grid.length);
+        assertEquals("UL quadrant is PACIFIC_POINT's index", (byte) 0, grid[0][0]);
+        assertEquals("UR quadrant is REAL_RED's index", (byte) 1, grid[1][3]);
+        assertEquals("LL quadrant is OLD_OLIVE's index", (byte) 2, grid[3][0]);
+        assertEquals("Colour outside COLOR_LIST maps back to itself",
+                Color.MAGENTA, Game.colorAt(grid[2][2]));
+
+        Color[][] colors = smashed.flatten();
+        boolean matches = true;
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid.length; j++) {
+                if (!colors[i][j].equals(Game.colorAt(grid[i][j]))) {
+                    matches = false;
+                }
+            }
+        }
+        assertTrue("flattenIndices() matches flatten()", matches);
+    }
+
+    private static void testIncrementalFlatten() {
+        System.out.println("\n--- Testing incremental flattenIndices() ---");
+
+        Block root = new Block(new Point(0, 0), 4, null, 128);
+        root.smash();
+        byte[][] cached = root.flattenIndices();
+        assertTrue("Root reuses its cached grid", cached == root.flattenIndices());
+
+        long version = root.getVersion();
+        Block child = root.getChildren()[2];
+        child.smash();
+        child.getChildren()[1].smash();
+        assertTrue("Moves bump the board version", root.getVersion() > version);
+        assertTrue("Child sees the root's version", child.getVersion() == root.getVersion());
+
+        Random rand = new Random(3);
+        boolean allMatch = true;
+        for (int i = 0; i < 200; i++) {
+            Block b = root.getSelectedBlock(rand.nextInt(128), rand.nextInt(128), rand.nextInt(5));
+            switch (rand.nextInt(5)) {
+                case 0 -> { if (b != null) b.smash(); }
+                case 1 -> { if (b != null) b.rotate(rand.nextBoolean()); }
+                case 2 -> { if (b != null) b.swap(rand.nextBoolean()); }
+                case 3 -> { if (b != null && b.getLevel() > 0) b.unsmash(); }
+                default -> { if (b != null && !b.hasChildren()) b.setColor(Game.COLOR_LIST[rand.nextInt(4)]); }
+            }
+            byte[][] fresh = root.copyBlock(root).flattenIndices();
+            if (!Arrays.deepEquals(fresh, root.flattenIndices())) {
+                allMatch = false;
+            }
+        }
+        assertTrue("Incremental grid matches a full re-flatten after 200 moves", allMatch);
+    }
+
     // ===== GET SELECTED BLOCK TESTS =====
 
     private static void testGetSelectedBlock() {
@@ -428,4 +514,192 @@ public class BlockTest {
         assertTrue("Modifying copy doesn't affect original",
                 !copy.getChildren()[0].getColor().equals(original.getChildren()[0].getColor()));
     }
+
+    // ===== SNAPSHOT TESTS =====
+
+    private static void testSnapshots() {
+        System.out.println("\n--- Testing BoardSnapshot ---");
+
+        Block root = createKnownBoard();
+        BoardSnapshot before = BoardSnapshot.of(root);
+        int[] path = root.getChildren()[0].getPath();
+        assertEquals("Path of UR child", 1, path.length);
+        assertEquals("Path of UR child is quadrant 0", 0, path[0]);
+        assertEquals("getDescendant follows a path", root.getChildren()[0], root.getDescendant(path));
+
+        root.getChildren()[1].smash();
+        assertTrue("Snapshot is not changed by the board", !before.get(new int[] {1}).hasChildren());
+
+        root.getChildren()[1].restore(before.get(new int[] {1}));
+        assertTrue("restore() undoes the smash", !root.getChildren()[1].hasChildren());
+        assertTrue("Restored board matches snapshot",
+                Arrays.deepEquals(root.flattenIndices(),
+                        before.toBlock(new Point(0, 0), 2, 100).flattenIndices()));
+    }
+
+    // ===== UNDO LOG TESTS =====
+
+    private static void testMoveRecords() {
+        System.out.println("\n--- Testing Move / MoveRecord ---");
+
+        assertEquals("TURN_CW undoes TURN_CCW", Action.TURN_CW, Action.TURN_CCW.inverse());
+        assertEquals("Swaps undo themselves", Action.SWAP_VERTICALLY, Action.SWAP_VERTICALLY.inverse());
+        assertEquals("SMASH has no inverse action", null, Action.SMASH.inverse());
+
+        Block root = new Block(new Point(0, 0), 4, null, 128);
+        root.smash();
+        byte[][] original = root.copyBlock(root).flattenIndices();
+
+        Random rand = new Random(11);
+        Stack<MoveRecord> log = new Stack<>();
+        for (int i = 0; i < 100; i++) {
+            Block b = root.getSelectedBlock(rand.nextInt(128), rand.nextInt(128), rand.nextInt(5));
+            if (b == null) {
+                continue;
+            }
+            Action action = Action.values()[rand.nextInt(Action.UNDO.ordinal())];
+            MoveRecord record = Move.of(b, action).apply(root);
+            if (record != null) {
+                log.push(record);
+            }
+        }
+        assertTrue("Random moves were logged", !log.isEmpty());
+
+        while (!log.isEmpty()) {
+            log.pop().revert(root);
+        }
+        assertTrue("Reverting the log restores the original board",
+                Arrays.deepEquals(original, root.flattenIndices()));
+    }
+
+    private static void testMoveGenerator() {
+        System.out.println("\n--- Testing MoveGenerator ---");
+
+        Block root = createKnownBoard();
+        assertEquals("Known board: 5 moves of the root and a smash per child", 9,
+                MoveGenerator.generate(root).size());
+
+        for (Block c : root.getChildren()) {
+            c.setColor(Color.RED);
+        }
+        assertEquals("Uniform children can't be permuted", 5, MoveGenerator.generate(root).size());
+
+        Block leaf = new Block(new Point(0, 0), 0, null, 100);
+        assertTrue("A board at max_depth has no moves", MoveGenerator.generate(leaf).isEmpty());
+
+        Block board = new Block(new Point(0, 0), 4, null, 128);
+        board.smash();
+        Random rand = new Random(13);
+        for (int i = 0; i < 50; i++) {
+            Block b = board.getSelectedBlock(rand.nextInt(128), rand.nextInt(128), rand.nextInt(5));
+            if (b != null) {
+                b.smash();
+            }
+        }
+        List<Move> moves = MoveGenerator.generate(board);
+        FlatBoard flat = FlatBoard.fromBlock(board);
+        boolean allApply = true;
+        boolean sameTargets = true;
+        for (Move move : moves) {
+            if (!move.target(flat).getRect().equals(move.target(board).getRect())) {
+                sameTargets = false;
+            }
+            Block copy = board.copyBlock(board);
+            if (move.apply(copy) == null) {
+                allApply = false;
+            }
+        }
+        assertTrue("Every generated move applies", allApply);
+        assertTrue("Moves find the same block on a FlatBoard", sameTargets);
+    }
+
+    // ===== HASH TESTS =====
+
+    private static void testHash() {
+        System.out.println("\n--- Testing getHash() ---");
+
+        Block a = createKnownBoard();
+        Block b = createKnownBoard();
+        assertEquals("Equal boards have equal hashes", a.getHash(), b.getHash());
+
+        long before = a.getHash();
+        a.rotate(true);
+        assertTrue("Rotating changes the hash", a.getHash() != before);
+        a.rotate(false);
+        assertEquals("Rotating back restores the hash", before, a.getHash());
+
+        a.getChildren()[2].smash();
+        long smashed = a.getHash();
+        a.getChildren()[2].unsmash();
+        a.getChildren()[2].setColor(Color.GREEN);
+        assertEquals("Unsmash back to the same leaf restores the hash", before, a.getHash());
+        assertTrue("Smashed board has a different hash", smashed != before);
+
+        Block root = new Block(new Point(0, 0), 4, null, 128);
+        root.smash();
+        Random rand = new Random(5);
+        boolean allMatch = true;
+        for (int i = 0; i < 200; i++) {
+            Block t = root.getSelectedBlock(rand.nextInt(128), rand.nextInt(128), rand.nextInt(5));
+            if (t != null) {
+                Action.values()[rand.nextInt(Action.UNDO.ordinal())].runAction(t);
+            }
+            // a fresh copy built by smash/setColor hashes from scratch
+            Block rebuilt = BoardSnapshot.of(root).toBlock(new Point(0, 0), 4, 128);
+            if (rebuilt.getHash() != root.getHash()) {
+                allMatch = false;
+            }
+        }
+        assertTrue("Incremental hash matches a rebuilt board after 200 moves", allMatch);
+    }
+
+    // ===== BOARD GENERATOR TESTS =====
+
+    private static void testBoardGenerator() {
+        System.out.println("\n--- Testing BoardGenerator ---");
+
+        Block a = BoardGenerator.generate(5, 256, BoardGenerator.decay(1.0, 0.2), 42L);
+        Block b = BoardGenerator.generate(5, 256, BoardGenerator.decay(1.0, 0.2), 42L);
+        assertEquals("Same seed generates the same board", a.getHash(), b.getHash());
+        assertTrue("Same seed generates the same colours",
+                Arrays.deepEquals(a.flattenIndices(), b.flattenIndices()));
+        Block c = BoardGenerator.generate(5, 256, BoardGenerator.decay(1.0, 0.2), 43L);
+        assertTrue("Another seed generates another board", a.getHash() != c.getHash());
+
+        Block rebuilt = BoardSnapshot.of(a).toBlock(new Point(0, 0), 5, 256);
+        assertEquals("Generated board hashes like one built by smashing", rebuilt.getHash(), a.getHash());
+
+        Block classic = BoardGenerator.generate(4, 128, BoardGenerator.CLASSIC, 1L);
+        boolean oneLevel = classic.hasChildren();
+        for (Block child : classic.getChildren()) {
+            oneLevel &= !child.hasChildren();
+        }
+        assertTrue("Classic profile smashes the root once", oneLevel);
+
+        Block full = BoardGenerator.generate(3, 64, BoardGenerator.levels(1, 1, 1, 1, 1), 7L);
+        assertEquals("Smashing every level stops at max depth", 64, countLeaves(full));
+        Block none = BoardGenerator.generate(3, 64, BoardGenerator.levels(0), 7L);
+        assertTrue("Never smashing leaves one block", !none.hasChildren());
+
+        Block board = new Block(new Point(0, 0), 4, null, 128, new SplittableRandom(9));
+        board.smash();
+        Block copy = board.copyBlock(board);
+        copy.getChildren()[0].smash();
+        board.getChildren()[0].smash();
+        Block again = new Block(new Point(0, 0), 4, null, 128, new SplittableRandom(9));
+        again.smash();
+        again.getChildren()[0].smash();
+        assertEquals("Smashing a copy takes no randomness from the original", again.getHash(), board.getHash());
+    }
+
+    private static int countLeaves(Block b) {
+        if (!b.hasChildren()) {
+            return 1;
+        }
+        int n = 0;
+        for (Block child : b.getChildren()) {
+            n += countLeaves(child);
+        }
+        return n;
+    }
 }
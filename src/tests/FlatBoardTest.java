@@ -0,0 +1,217 @@
+package tests;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import game.Action;
+import game.Block;
+import game.FlatBlock;
+import game.FlatBoard;
+
+/**
+ * Test suite for FlatBoard.java
+ * Checks that every move on a FlatBoard gives the same board as the same
+ * move on an equivalent Block tree.
+ */
+public class FlatBoardTest {
+
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Running FlatBoard Tests ===\n");
+
+        testRoundTrip();
+        testMoves();
+        testGetSelectedBlock();
+        testRandomGames();
+        testRevert();
+
+        System.out.println("\n=== Test Summary ===");
+        System.out.println("Passed: " + passCount);
+        System.out.println("Failed: " + failCount);
+        System.out.println("Total:  " + (passCount + failCount));
+    }
+
+    // ===== HELPER METHODS =====
+
+    private static Block createKnownBoard() {
+        Block root = new Block(new Point(0, 0), 3, null, 96);
+        root.smash();
+        root.getChildren()[0].setColor(Color.RED);
+        root.getChildren()[1].setColor(Color.BLUE);
+        root.getChildren()[2].setColor(Color.GREEN);
+        root.getChildren()[3].setColor(Color.YELLOW);
+        root.getChildren()[0].smash();
+        Block ur = root.getChildren()[0];
+        ur.getChildren()[0].setColor(Color.MAGENTA);
+        ur.getChildren()[1].setColor(Color.CYAN);
+        ur.getChildren()[2].setColor(Color.ORANGE);
+        ur.getChildren()[3].setColor(Color.PINK);
+        return root;
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failCount++;
+        }
+    }
+
+    private static boolean sameGrid(Block b, FlatBoard f) {
+        return Arrays.deepEquals(b.flatten(), f.flatten()) && b.getHash() == f.getHash();
+    }
+
+    // ===== TESTS =====
+
+    private static void testRoundTrip() {
+        System.out.println("\n--- Testing fromBlock() / toBlock() ---");
+
+        Block root = createKnownBoard();
+        FlatBoard flat = FlatBoard.fromBlock(root);
+        assertTrue("FlatBoard flattens like its Block", sameGrid(root, flat));
+        assertTrue("toBlock() flattens like the original", Arrays.deepEquals(root.flatten(), flat.toBlock().flatten()));
+
+        FlatBoard copy = flat.copy();
+        copy.getRoot().rotate(true);
+        assertTrue("Modifying a copy doesn't affect the original", sameGrid(root, flat));
+
+        FlatBoard scratch = flat.copyInto(copy);
+        assertTrue("copyInto() reuses a board of the same shape", scratch == copy);
+        assertTrue("copyInto() copies the board", sameGrid(root, scratch));
+        FlatBoard other = FlatBoard.fromBlock(new Block(new Point(0, 0), 1, null, 50));
+        assertTrue("copyInto() copies a board of another shape", flat.copyInto(other) != other);
+    }
+
+    private static void testMoves() {
+        System.out.println("\n--- Testing moves ---");
+
+        for (Action action : new Action[] {Action.SWAP_VERTICALLY, Action.SWAP_HORIZONTALLY,
+            Action.TURN_CW, Action.TURN_CCW}) {
+            Block root = createKnownBoard();
+            FlatBoard flat = FlatBoard.fromBlock(root);
+            action.runAction(root);
+            root.updateBlockLocations();
+            action.runAction(flat.getRoot());
+            assertTrue(action + " on root matches Block", sameGrid(root, flat));
+        }
+
+        Block majority = createKnownBoard();
+        majority.getChildren()[3].setColor(Color.BLUE);
+        FlatBoard flat = FlatBoard.fromBlock(majority);
+        majority.unsmash();
+        flat.getRoot().unsmash();
+        assertTrue("UNSMASH on root picks the majority colour", sameGrid(majority, flat));
+
+        flat = FlatBoard.fromBlock(createKnownBoard());
+        FlatBlock leaf = flat.getSelectedBlock(10, 10, 1);
+        assertTrue("Cannot rotate a leaf", !leaf.rotate(true));
+        assertTrue("Cannot swap a leaf", !leaf.swap(true));
+        assertTrue("Can smash a leaf above max depth", leaf.smash());
+        assertTrue("Smashed leaf has children", leaf.hasChildren());
+        assertTrue("Cannot smash a block with children", !leaf.smash());
+    }
+
+    private static void testGetSelectedBlock() {
+        System.out.println("\n--- Testing getSelectedBlock() ---");
+
+        Block root = createKnownBoard();
+        FlatBoard flat = FlatBoard.fromBlock(root);
+
+        assertTrue("Selected root block", flat.getSelectedBlock(50, 50, 0).getRect().equals(root.getRect()));
+        assertTrue("Selected UR grandchild rect",
+            flat.getSelectedBlock(90, 10, 2).getRect().equals(root.getSelectedBlock(90, 10, 2).getRect()));
+        assertTrue("Selected UR grandchild color", flat.getSelectedBlock(90, 10, 2).getColor().equals(Color.MAGENTA));
+        assertTrue("Level below a leaf returns null", flat.getSelectedBlock(10, 10, 2) == null);
+        assertTrue("Out of bounds returns null", flat.getSelectedBlock(150, 150, 0) == null);
+    }
+
+    private static void testRandomGames() {
+        System.out.println("\n--- Testing random move sequences (grid and hash) ---");
+
+        Random rand = new Random(7);
+        boolean allMatch = true;
+        for (int game = 0; game < 20; game++) {
+            Block root = new Block(new Point(0, 0), 4, null, 256);
+            root.smash();
+            FlatBoard flat = FlatBoard.fromBlock(root);
+
+            for (int move = 0; move < 40; move++) {
+                int x = rand.nextInt(256);
+                int y = rand.nextInt(256);
+                int level = rand.nextInt(5);
+                Action action = Action.values()[rand.nextInt(Action.values().length)];
+
+                Block b = root.getSelectedBlock(x, y, level);
+                FlatBlock f = flat.getSelectedBlock(x, y, level);
+                if ((b == null) != (f == null)) {
+                    allMatch = false;
+                    break;
+                }
+                if (action == Action.SMASH || action == Action.UNSMASH) {
+                    // smash colours are random and unsmash ties are arbitrary,
+                    // so copy the new board across
+                    if (action.runAction(b) != action.runAction(f)) {
+                        allMatch = false;
+                        break;
+                    }
+                    root.updateBlockLocations();
+                    flat = FlatBoard.fromBlock(root);
+                    continue;
+                }
+                boolean rb = action.runAction(b);
+                boolean rf = action.runAction(f);
+                root.updateBlockLocations();
+                if (rb != rf || !sameGrid(root, flat)) {
+                    allMatch = false;
+                    break;
+                }
+            }
+        }
+        assertTrue("Random move sequences match the Block tree", allMatch);
+    }
+
+    private static void testRevert() {
+        System.out.println("\n--- Testing in-place revert ---");
+
+        Random rand = new Random(11);
+        boolean allReverted = true;
+        int smashes = 0;
+        for (int game = 0; game < 20; game++) {
+            Block root = new Block(new Point(0, 0), 4, null, 256);
+            root.smash();
+            FlatBoard flat = FlatBoard.fromBlock(root);
+
+            for (int move = 0; move < 40; move++) {
+                FlatBlock f = flat.getSelectedBlock(rand.nextInt(256), rand.nextInt(256), rand.nextInt(5));
+                Action action = Action.values()[rand.nextInt(Action.UNDO.ordinal())];
+                if (f == null) {
+                    continue;
+                }
+                byte[][] before = flat.flattenIndices();
+                long hash = flat.getHash();
+                byte[] saved = action.inverse() == null ? f.saveCells() : null;
+                if (!action.runAction(f)) {
+                    continue;
+                }
+                if (saved != null) {
+                    f.restoreCells(saved);
+                    smashes++;
+                } else {
+                    action.inverse().runAction(f);
+                }
+                if (!Arrays.deepEquals(before, flat.flattenIndices()) || flat.getHash() != hash) {
+                    allReverted = false;
+                }
+                // keep the board changing between checks
+                action.runAction(f);
+            }
+        }
+        assertTrue("Inverse actions and restoreCells put the board back", allReverted);
+        assertTrue("Smashes and unsmashes were reverted", smashes > 0);
+    }
+}
@@ -0,0 +1,264 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import game.Action;
+import game.Block;
+import game.GameEngine;
+import game.GameListener;
+import game.GameState;
+import game.MoveRecord;
+import players.Player;
+
+/**
+ * Test suite for GameEngine.java
+ * Plays whole games without a display and checks the turns, the events and
+ * the winner.
+ */
+public class GameEngineTest {
+
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Running GameEngine Tests ===\n");
+
+        testPlayToEnd();
+        testHumanTurns();
+        testSeveralGames();
+        testSeededGames();
+
+        System.out.println("\n=== Test Summary ===");
+        System.out.println("Passed: " + passCount);
+        System.out.println("Failed: " + failCount);
+        System.out.println("Total:  " + (passCount + failCount));
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * A listener that writes down the events it receives.
+     */
+    private static class Recorder implements GameListener {
+        private final List<String> events = new ArrayList<>();
+        private Player winner;
+        private int score;
+
+        @Override
+        public void gameStarted(GameEngine engine) {
+            events.add("started");
+        }
+
+        @Override
+        public void turnStarted(GameEngine engine, Player player) {
+            events.add("turn " + player.getPlayerID());
+        }
+
+        @Override
+        public void movePlayed(GameEngine engine, Player player, MoveRecord record) {
+            events.add("move " + player.getPlayerID());
+        }
+
+        @Override
+        public void turnPassed(GameEngine engine, Player player) {
+            events.add("pass " + player.getPlayerID());
+        }
+
+        @Override
+        public void moveUndone(GameEngine engine, MoveRecord record) {
+            events.add("undo");
+        }
+
+        @Override
+        public void gameEnded(GameEngine engine, Player winner, int score) {
+            events.add("ended");
+            this.winner = winner;
+            this.score = score;
+        }
+
+        private int count(String prefix) {
+            int n = 0;
+            for (String e : events) {
+                if (e.startsWith(prefix)) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failCount++;
+        }
+    }
+
+    private static void assertEquals(String testName, Object expected, Object actual) {
+        if ((expected == null && actual == null) || (expected != null && expected.equals(actual))) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName + " (expected: " + expected + ", got: " + actual + ")");
+            failCount++;
+        }
+    }
+
+    // ===== COMPUTER GAME TESTS =====
+
+    private static void testPlayToEnd() {
+        System.out.println("\n--- Testing a game of computer players ---");
+
+        GameEngine engine = new GameEngine(4, 12);
+        engine.addPlayers(0, 1, 1, 0, 0, 0);
+        Recorder recorder = new Recorder();
+        engine.addListener(recorder);
+        engine.playToEnd();
+
+        assertEquals("Game is completed", GameState.completed, engine.getState());
+        assertEquals("Every turn was played", 12, engine.getTurnsPlayed());
+        assertEquals("Game started once", 1, recorder.count("started"));
+        assertEquals("Game ended once", 1, recorder.count("ended"));
+        assertEquals("Every turn moved or passed", 12, recorder.count("move") + recorder.count("pass"));
+        assertEquals("A turn started before every move", 12, recorder.count("turn"));
+        assertEquals("Players alternate", "turn 2", recorder.events.get(recorder.events.indexOf("move 1") + 1));
+
+        int best = Integer.MIN_VALUE;
+        for (Player p : engine.getPlayers()) {
+            best = Math.max(best, p.getScore());
+        }
+        assertEquals("Winner has the best score", best, recorder.score);
+        assertEquals("Winner is reported by the engine", recorder.winner, engine.getWinner());
+        assertTrue("No more moves after the end",
+                !engine.play(engine.getBoard(), Action.TURN_CW));
+
+        GameEngine random = new GameEngine(4, 60);
+        random.addPlayers(0, 0, 0, 2, 0, 0);
+        Recorder randomRecorder = new Recorder();
+        random.addListener(randomRecorder);
+        random.playToEnd();
+        assertEquals("Random players play every turn", 60, random.getTurnsPlayed());
+        assertEquals("Random players never undo", 0, randomRecorder.count("undo"));
+    }
+
+    // ===== HUMAN TURN TESTS =====
+
+    private static void testHumanTurns() {
+        System.out.println("\n--- Testing moves and undo ---");
+
+        GameEngine engine = new GameEngine(3, 10);
+        engine.addPlayers(2, 0, 0, 0, 0, 0);
+        Recorder recorder = new Recorder();
+        engine.addListener(recorder);
+        engine.start();
+
+        Block board = engine.getBoard();
+        long hash = board.getHash();
+        assertTrue("A leaf cannot be rotated", !engine.play(firstLeaf(board), Action.TURN_CW));
+        assertEquals("A failed move does not end the turn", 0, engine.getTurnsPlayed());
+
+        assertTrue("Rotating the board is played", engine.play(board, Action.TURN_CW));
+        assertEquals("Turn passed to the second player", 1, engine.getPlayerTurn());
+        assertEquals("Move is in the history", 1, engine.getHistorySize());
+
+        assertTrue("Undo succeeds", engine.undo());
+        assertEquals("Undo restores the board", hash, board.getHash());
+        assertEquals("Undo hands the turn back", 0, engine.getPlayerTurn());
+        assertEquals("Undo takes the turn back", 0, engine.getTurnsPlayed());
+        assertTrue("Nothing left to undo", !engine.undo());
+
+        engine.pass();
+        assertEquals("Passing ends the turn", 1, engine.getTurnsPlayed());
+        assertEquals("Pass was published", 1, recorder.count("pass"));
+
+        engine.end();
+        assertEquals("Ending early completes the game", GameState.completed, engine.getState());
+        assertTrue("A winner is decided", engine.getWinner() != null);
+    }
+
+    private static Block firstLeaf(Block b) {
+        while (b.hasChildren()) {
+            b = b.getChildren()[0];
+        }
+        return b;
+    }
+
+    // ===== SEVERAL GAMES TESTS =====
+
+    private static void testSeveralGames() {
+        System.out.println("\n--- Testing games on several threads ---");
+
+        int games = 4;
+        GameEngine[] engines = new GameEngine[games];
+        Thread[] threads = new Thread[games];
+        for (int i = 0; i < games; i++) {
+            GameEngine engine = new GameEngine(4, 8);
+            engine.addPlayers(0, 1, 0, 1, 0, 0);
+            engines[i] = engine;
+            threads[i] = new Thread(engine::playToEnd);
+            threads[i].start();
+        }
+        boolean allDone = true;
+        for (int i = 0; i < games; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (engines[i].getState() != GameState.completed || engines[i].getTurnsPlayed() != 8) {
+                allDone = false;
+            }
+        }
+        assertTrue("Games run side by side in one JVM", allDone);
+    }
+
+    // ===== SEED TESTS =====
+
+    private static void testSeededGames() {
+        System.out.println("\n--- Testing seeded games ---");
+
+        GameEngine first = seededGame(1234L);
+        GameEngine second = seededGame(1234L);
+        assertEquals("Seed is recorded", 1234L, first.getSeed());
+        assertEquals("Same seed deals the same board", first.getBoard().getHash(), second.getBoard().getHash());
+        assertEquals("Same seed deals the same goals", goals(first), goals(second));
+
+        first.playToEnd();
+        second.playToEnd();
+        assertEquals("Same seed plays the same game", first.getBoard().getHash(), second.getBoard().getHash());
+        assertEquals("Same seed gives the same scores", scores(first), scores(second));
+
+        long dealt = seededGame(1234L).getBoard().getHash();
+        boolean differs = false;
+        for (long seed = 1; seed <= 5 && !differs; seed++) {
+            differs = seededGame(seed).getBoard().getHash() != dealt;
+        }
+        assertTrue("Other seeds deal other boards", differs);
+    }
+
+    private static GameEngine seededGame(long seed) {
+        GameEngine engine = new GameEngine(4, 256, 10, seed);
+        engine.addPlayers(0, 1, 0, 1, 0, 0);
+        return engine;
+    }
+
+    private static String goals(GameEngine engine) {
+        StringBuilder s = new StringBuilder();
+        for (Player p : engine.getPlayers()) {
+            s.append(p.getGoal().getGoalName()).append(' ');
+        }
+        return s.toString();
+    }
+
+    private static String scores(GameEngine engine) {
+        StringBuilder s = new StringBuilder();
+        for (Player p : engine.getPlayers()) {
+            s.append(p.getScore()).append(' ');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,514 @@
+package tests;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import game.Action;
+import game.BitBoard;
+import game.BlobGoal;
+import game.Block;
+import game.BoardGenerator;
+import game.DiagonalGoal;
+import game.FlatBoard;
+import game.Game;
+import game.Goal;
+import game.Move;
+import game.MoveGenerator;
+import game.PerimeterGoal;
+import game.ScoreBoard;
+import game.ScoreCache;
+
+/**
+ * Test suite for the Goal classes
+ * Checks that every scoring engine agrees with the original flatten-based
+ * scorer on random boards.
+ */
+public class GoalTest {
+
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Running Goal Tests ===\n");
+
+        testKnownBoard();
+        testUnionFindEngine();
+        testScanlineEngine();
+        testQuadtreeEngine();
+        testTreeGoals();
+        testScoreBoard();
+        testBitBoard();
+        testScoreDelta();
+        testScoreCache();
+
+        System.out.println("\n=== Test Summary ===");
+        System.out.println("Passed: " + passCount);
+        System.out.println("Failed: " + failCount);
+        System.out.println("Total:  " + (passCount + failCount));
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Create a known board: UL, LL and the UR grandchildren's UL are
+     * PACIFIC_POINT, everything else REAL_RED.
+     */
+    private static Block createKnownBoard() {
+        Block root = new Block(new Point(0, 0), 2, null, 100);
+        root.smash();
+        root.getChildren()[0].smash();
+        for (Block c : root.getChildren()[0].getChildren()) {
+            c.setColor(Game.REAL_RED);
+        }
+        root.getChildren()[0].getChildren()[1].setColor(Game.PACIFIC_POINT);
+        root.getChildren()[1].setColor(Game.PACIFIC_POINT);
+        root.getChildren()[2].setColor(Game.PACIFIC_POINT);
+        root.getChildren()[3].setColor(Game.REAL_RED);
+        return root;
+    }
+
+    /**
+     * Apply a random action to a random block of the board.
+     */
+    private static void randomMove(Block root, Random rand) {
+        int size = root.getSize();
+        Block b = root.getSelectedBlock(rand.nextInt(size), rand.nextInt(size),
+                rand.nextInt(root.getMaxDepth() + 1));
+        if (b != null) {
+            Action.values()[rand.nextInt(Action.UNDO.ordinal())].runAction(b);
+        }
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failCount++;
+        }
+    }
+
+    private static void assertEquals(String testName, Object expected, Object actual) {
+        if ((expected == null && actual == null) || (expected != null && expected.equals(actual))) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName + " (expected: " + expected + ", got: " + actual + ")");
+            failCount++;
+        }
+    }
+
+    // ===== KNOWN BOARD TESTS =====
+
+    private static void testKnownBoard() {
+        System.out.println("\n--- Testing scores of a known board ---");
+
+        Block root = createKnownBoard();
+        Goal blob = new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.FLOOD_FILL);
+        assertEquals("Blob of PACIFIC_POINT", 9, blob.score(root));
+        assertEquals("Blob of REAL_RED", 7, new BlobGoal(Game.REAL_RED, BlobGoal.Engine.FLOOD_FILL).score(root));
+        assertEquals("Blob of a missing colour", 0, new BlobGoal(Game.OLD_OLIVE).score(root));
+    }
+
+    // ===== ENGINE TESTS =====
+
+    private static void testUnionFindEngine() {
+        System.out.println("\n--- Testing BlobGoal UNION_FIND engine ---");
+
+        Block root = createKnownBoard();
+        Goal unionFind = new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.UNION_FIND);
+        assertEquals("Union-find blob of PACIFIC_POINT", 9, unionFind.score(root));
+
+        Random rand = new Random(17);
+        boolean allMatch = true;
+        for (int game = 0; game < 10; game++) {
+            Block board = new Block(new Point(0, 0), 5, null, 256);
+            board.smash();
+            for (int move = 0; move < 100; move++) {
+                // several moves between scores exercise the change log
+                int moves = rand.nextInt(3) + 1;
+                for (int i = 0; i < moves; i++) {
+                    randomMove(board, rand);
+                }
+                for (Color c : Game.COLOR_LIST) {
+                    int expected = new BlobGoal(c, BlobGoal.Engine.FLOOD_FILL).score(board);
+                    int actual = new BlobGoal(c, BlobGoal.Engine.UNION_FIND).score(board);
+                    if (expected != actual) {
+                        allMatch = false;
+                    }
+                }
+            }
+        }
+        assertTrue("Union-find engine matches flood fill over 1000 random moves", allMatch);
+    }
+
+    private static void testScanlineEngine() {
+        System.out.println("\n--- Testing BlobGoal SCANLINE engine ---");
+
+        Block root = createKnownBoard();
+        assertEquals("Scanline blob of PACIFIC_POINT", 9,
+                new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.SCANLINE).score(root));
+
+        Random rand = new Random(19);
+        boolean allMatch = true;
+        for (int game = 0; game < 10; game++) {
+            Block board = new Block(new Point(0, 0), 5, null, 256);
+            board.smash();
+            for (int move = 0; move < 50; move++) {
+                randomMove(board, rand);
+                for (Color c : Game.COLOR_LIST) {
+                    int expected = new BlobGoal(c, BlobGoal.Engine.FLOOD_FILL).score(board);
+                    int actual = new BlobGoal(c, BlobGoal.Engine.SCANLINE).score(board);
+                    if (expected != actual) {
+                        allMatch = false;
+                    }
+                }
+            }
+        }
+        assertTrue("Scanline engine matches flood fill over 500 random moves", allMatch);
+
+        // a single 1024x1024 blob would overflow the recursive flood fill
+        Block deep = new Block(new Point(0, 0), 10, null, 1024);
+        deep.setColor(Game.OLD_OLIVE);
+        assertEquals("Scanline fills a 1024x1024 blob", 1 << 20,
+                new BlobGoal(Game.OLD_OLIVE, BlobGoal.Engine.SCANLINE).score(deep));
+    }
+
+    private static void testQuadtreeEngine() {
+        System.out.println("\n--- Testing BlobGoal QUADTREE engine ---");
+
+        Block root = createKnownBoard();
+        assertEquals("Quadtree blob of PACIFIC_POINT", 9,
+                new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.QUADTREE).score(root));
+        assertEquals("Quadtree blob of REAL_RED", 7,
+                new BlobGoal(Game.REAL_RED, BlobGoal.Engine.QUADTREE).score(root));
+
+        Random rand = new Random(23);
+        boolean allMatch = true;
+        for (int game = 0; game < 10; game++) {
+            Block board = new Block(new Point(0, 0), 5, null, 256);
+            board.smash();
+            for (int move = 0; move < 50; move++) {
+                randomMove(board, rand);
+                for (Color c : Game.COLOR_LIST) {
+                    int expected = new BlobGoal(c, BlobGoal.Engine.FLOOD_FILL).score(board);
+                    int actual = new BlobGoal(c, BlobGoal.Engine.QUADTREE).score(board);
+                    if (expected != actual) {
+                        allMatch = false;
+                    }
+                }
+            }
+        }
+        assertTrue("Quadtree engine matches flood fill over 500 random moves", allMatch);
+
+        // one leaf at depth 15 stands for 2^30 cells without being expanded
+        Block deep = new Block(new Point(0, 0), 15, null, 1 << 15);
+        deep.setColor(Game.OLD_OLIVE);
+        assertEquals("Quadtree scores a single 32768x32768 leaf", 1 << 30,
+                new BlobGoal(Game.OLD_OLIVE, BlobGoal.Engine.QUADTREE).score(deep));
+    }
+
+    // ===== TREE-NATIVE GOAL TESTS =====
+
+    private static void testTreeGoals() {
+        System.out.println("\n--- Testing tree-native PerimeterGoal and DiagonalGoal ---");
+
+        Random rand = new Random(29);
+        boolean blockMatch = true;
+        boolean flatMatch = true;
+        for (int depth = 0; depth <= 5; depth++) {
+            Block board = new Block(new Point(0, 0), depth, null, 256);
+            board.smash();
+            for (int move = 0; move < 50; move++) {
+                randomMove(board, rand);
+                FlatBoard flat = FlatBoard.fromBlock(board);
+                byte[][] grid = board.flattenIndices();
+                for (Color c : Game.COLOR_LIST) {
+                    for (Goal goal : new Goal[] {new PerimeterGoal(c), new DiagonalGoal(c)}) {
+                        int expected = goal.score(grid);
+                        if (goal.score(board) != expected) {
+                            blockMatch = false;
+                        }
+                        if (goal.score(flat) != expected) {
+                            flatMatch = false;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue("Tree scores of Block boards match the flattened grid", blockMatch);
+        assertTrue("Tree scores of FlatBoards match the flattened grid", flatMatch);
+
+        // a sub-block is scored as a board of its own
+        Block root = createKnownBoard();
+        Block ur = root.getChildren()[0];
+        Goal perimeter = new PerimeterGoal(Game.PACIFIC_POINT);
+        assertEquals("Perimeter of a sub-block", perimeter.score(ur.flattenIndices()), perimeter.score(ur));
+    }
+
+    // ===== SCOREBOARD TESTS =====
+
+    /**
+     * A perimeter goal that counts how many times it has scored a board, and
+     * remembers the last BitBoard it scored.
+     */
+    private static class CountingGoal extends PerimeterGoal {
+        private int calls = 0;
+        private BitBoard last;
+
+        CountingGoal(Color c) {
+            super(c);
+        }
+
+        @Override
+        public int score(Block board) {
+            calls++;
+            return super.score(board);
+        }
+
+        @Override
+        public int score(BitBoard board) {
+            calls++;
+            last = board;
+            return super.score(board);
+        }
+    }
+
+    private static void testScoreBoard() {
+        System.out.println("\n--- Testing ScoreBoard ---");
+
+        Block root = createKnownBoard();
+        ScoreBoard scores = new ScoreBoard();
+        Goal blob = new BlobGoal(Game.PACIFIC_POINT);
+        CountingGoal perimeter = new CountingGoal(Game.REAL_RED);
+        scores.register(blob);
+        scores.register(perimeter);
+
+        assertEquals("ScoreBoard blob score", blob.score(root), scores.score(blob, root));
+        assertEquals("ScoreBoard perimeter score", new PerimeterGoal(Game.REAL_RED).score(root),
+                scores.score(perimeter, root));
+        scores.score(blob, root);
+        scores.score(perimeter, root);
+        assertEquals("Scores are reused while the board is unchanged", 1, perimeter.calls);
+
+        root.getChildren()[0].rotate(true);
+        assertEquals("Scores follow a move", blob.score(root), scores.score(blob, root));
+        assertEquals("Every goal is rescored once after a move", 2, perimeter.calls);
+
+        Goal twin = new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.SCANLINE);
+        assertEquals("Equal goals share a score", scores.score(blob, root), scores.score(twin, root));
+
+        CountingGoal other = new CountingGoal(Game.DAFFODIL_DELIGHT);
+        scores.register(other);
+        root.getChildren()[1].rotate(false);
+        assertEquals("Every goal is scored on the new board",
+                new PerimeterGoal(Game.DAFFODIL_DELIGHT).score(root), scores.score(other, root));
+        assertTrue("One walk of the board is shared by every goal",
+                other.last != null && other.last == perimeter.last);
+    }
+
+    // ===== BITBOARD TESTS =====
+
+    private static void testBitBoard() {
+        System.out.println("\n--- Testing BitBoard scoring ---");
+
+        Block root = createKnownBoard();
+        BitBoard known = BitBoard.of(root);
+        assertEquals("BitBoard blob of PACIFIC_POINT", 9,
+                new BlobGoal(Game.PACIFIC_POINT).score(known));
+        assertEquals("BitBoard count of REAL_RED", 7, known.count(Game.colorIndex(Game.REAL_RED)));
+
+        // depth 7 gives two words per row, so blobs and masks cross words;
+        // its blobs are too big for the recursive FLOOD_FILL engine
+        Random rand = new Random(31);
+        boolean gridsMatch = true;
+        boolean scoresMatch = true;
+        for (int depth = 0; depth <= 7; depth++) {
+            Block board = new Block(new Point(0, 0), depth, null, 256);
+            board.smash();
+            for (int move = 0; move < 30; move++) {
+                randomMove(board, rand);
+                byte[][] grid = board.flattenIndices();
+                BitBoard bits = BitBoard.of(board);
+                if (!Arrays.deepEquals(grid, bits.toIndices())
+                        || !Arrays.deepEquals(grid, BitBoard.of(FlatBoard.fromBlock(board)).toIndices())) {
+                    gridsMatch = false;
+                }
+                for (Color c : Game.COLOR_LIST) {
+                    Goal[] goals = {new BlobGoal(c, BlobGoal.Engine.SCANLINE), new PerimeterGoal(c),
+                            new DiagonalGoal(c)};
+                    for (Goal goal : goals) {
+                        if (goal.score(bits) != goal.score(grid)) {
+                            scoresMatch = false;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue("BitBoard planes match the flattened grid", gridsMatch);
+        assertTrue("BitBoard scores match the grid scores", scoresMatch);
+        assertEquals("BITBOARD engine scores a Block", 9,
+                new BlobGoal(Game.PACIFIC_POINT, BlobGoal.Engine.BITBOARD).score(root));
+    }
+
+    // ===== SCORE DELTA TESTS =====
+
+    private static void testScoreDelta() {
+        System.out.println("\n--- Testing Goal.scoreDelta ---");
+
+        // smashes draw their colours from equally seeded generators, so they
+        // colour the copy and the scored board alike
+        Random rand = new Random(37);
+        boolean deltasMatch = true;
+        boolean boardsKept = true;
+        for (int depth = 1; depth <= 5; depth++) {
+            Block board = new Block(new Point(0, 0), depth, null, 256);
+            board.smash();
+            for (int round = 0; round < 6; round++) {
+                randomMove(board, rand);
+                long hash = board.getHash();
+                byte[][] grid = board.flattenIndices();
+                for (Move move : MoveGenerator.generate(board)) {
+                    Block copy = board.copyBlock(board);
+                    move.apply(copy, new SplittableRandom(round));
+                    for (Color c : Game.COLOR_LIST) {
+                        Goal[] goals = {new PerimeterGoal(c), new DiagonalGoal(c), new BlobGoal(c)};
+                        for (Goal goal : goals) {
+                            int delta = goal.scoreDelta(board, move.target(board), move.getAction(),
+                                    new SplittableRandom(round));
+                            if (delta != goal.score(copy) - goal.score(grid)) {
+                                deltasMatch = false;
+                            }
+                        }
+                    }
+                    if (board.getHash() != hash || !Arrays.deepEquals(grid, board.flattenIndices())) {
+                        boardsKept = false;
+                    }
+                }
+            }
+        }
+        assertTrue("Score deltas match the full scorers", deltasMatch);
+        assertTrue("scoreDelta leaves the board unchanged", boardsKept);
+
+        // a unit cell in the middle of a depth-2 board is off both edges
+        Block root = createKnownBoard();
+        Block inner = root.getChildren()[0].getChildren()[2];
+        assertEquals("Interior block has no perimeter delta", 0,
+                new PerimeterGoal(Game.PACIFIC_POINT).scoreDelta(root, inner, Action.SMASH));
+    }
+
+    // ===== SCORE CACHE TESTS =====
+
+    private static void testScoreCache() {
+        System.out.println("\n--- Testing ScoreCache ---");
+
+        Block root = createKnownBoard();
+        ScoreCache cache = new ScoreCache(1024);
+        CountingGoal perimeter = new CountingGoal(Game.REAL_RED);
+        assertEquals("Cached score matches the goal", perimeter.score(root), cache.score(perimeter, root));
+        assertEquals("First lookup misses", 1L, cache.getMisses());
+        assertEquals("Cache scores the board once", 2, perimeter.calls);
+        cache.score(perimeter, root);
+        assertEquals("Second lookup hits", 1L, cache.getHits());
+        assertEquals("A hit does not rescore", 2, perimeter.calls);
+        cache.score(new BlobGoal(Game.REAL_RED), root);
+        assertEquals("Another goal misses", 2L, cache.getMisses());
+
+        // One unsmashed colour has the same hash at every depth, but not the
+        // same score.
+        Goal blob = new BlobGoal(Game.REAL_RED);
+        Block shallow = new Block(new Point(0, 0), 2, null, 64);
+        shallow.setColor(Game.REAL_RED);
+        Block deep = new Block(new Point(0, 0), 3, null, 64);
+        deep.setColor(Game.REAL_RED);
+        assertEquals("Boards of different depths share a hash", shallow.getHash(), deep.getHash());
+        assertEquals("Shallow board scores its cells", 16, cache.score(blob, shallow));
+        assertEquals("Depth is part of the key", 64, cache.score(blob, deep));
+
+        // Every set of the smallest cache overflows on a stream of boards.
+        ScoreCache small = new ScoreCache(64);
+        List<Block> hot = boards(4, 1000);
+        for (Block b : hot) {
+            small.score(blob, b);
+            small.score(blob, b);
+        }
+        Block cold = BoardGenerator.generate(4, 64, BoardGenerator.decay(1.0, 0.25), 999L);
+        small.score(blob, cold);
+        boolean hotSurvived = true;
+        for (Block b : boards(500, 2000)) {
+            small.score(blob, b);
+            long before = small.getHits();
+            for (Block h : hot) {
+                small.score(blob, h);
+            }
+            hotSurvived &= small.getHits() - before == hot.size();
+        }
+        assertTrue("Overflowing sets evict", small.getEvictions() > 0);
+        assertTrue("Recently used entries survive eviction", hotSurvived);
+        long hits = small.getHits();
+        small.score(blob, cold);
+        assertEquals("Unused entries are evicted", hits, small.getHits());
+
+        // Many threads share one cache.
+        ScoreCache shared = new ScoreCache(256);
+        List<Block> pool = boards(40, 3000);
+        Goal[] goals = {new BlobGoal(Game.PACIFIC_POINT), new PerimeterGoal(Game.OLD_OLIVE)};
+        int[][] expected = new int[goals.length][pool.size()];
+        for (int g = 0; g < goals.length; g++) {
+            for (int i = 0; i < pool.size(); i++) {
+                expected[g][i] = goals[g].score(pool.get(i));
+            }
+        }
+        AtomicBoolean agree = new AtomicBoolean(true);
+        Thread[] threads = new Thread[8];
+        int lookups = 2000;
+        for (int t = 0; t < threads.length; t++) {
+            Random rand = new Random(t);
+            threads[t] = new Thread(() -> {
+                for (int n = 0; n < lookups; n++) {
+                    int g = rand.nextInt(goals.length);
+                    int i = rand.nextInt(pool.size());
+                    if (shared.score(goals[g], pool.get(i)) != expected[g][i]) {
+                        agree.set(false);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertTrue("Concurrent lookups agree with goal.score", agree.get());
+        assertEquals("Every concurrent lookup is counted", (long)threads.length * lookups,
+                shared.getHits() + shared.getMisses());
+        assertTrue("Concurrent lookups hit", shared.getHits() > 0);
+    }
+
+    /**
+     * Return n different random boards generated from consecutive seeds.
+     */
+    private static List<Block> boards(int n, long firstSeed) {
+        List<Block> boards = new ArrayList<>();
+        for (long seed = firstSeed; boards.size() < n; seed++) {
+            Block b = BoardGenerator.generate(4, 64, BoardGenerator.decay(1.0, 0.25), seed);
+            boolean fresh = true;
+            for (Block other : boards) {
+                fresh &= other.getHash() != b.getHash();
+            }
+            if (fresh) {
+                boards.add(b);
+            }
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,231 @@
+package tests;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import game.Action;
+import game.BlobGoal;
+import game.Block;
+import game.BoardGenerator;
+import game.Game;
+import game.GameEngine;
+import game.Move;
+import game.MoveGenerator;
+import game.PerimeterGoal;
+import players.MCTSPlayer;
+import players.SearchPlayer;
+import players.SimpleAI;
+import players.SmartAI2;
+
+/**
+ * Test suite for the computer players
+ * Checks that their searches choose legal moves and leave the board they are
+ * given as it was.
+ */
+public class PlayerTest {
+
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== Running Player Tests ===\n");
+
+        testSmartAI2();
+        testSearchPlayer();
+        testMCTSPlayer();
+
+        System.out.println("\n=== Test Summary ===");
+        System.out.println("Passed: " + passCount);
+        System.out.println("Failed: " + failCount);
+        System.out.println("Total:  " + (passCount + failCount));
+    }
+
+    // ===== HELPER METHODS =====
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failCount++;
+        }
+    }
+
+    private static void assertEquals(String testName, Object expected, Object actual) {
+        if ((expected == null && actual == null) || (expected != null && expected.equals(actual))) {
+            System.out.println("✓ PASS: " + testName);
+            passCount++;
+        } else {
+            System.out.println("✗ FAIL: " + testName + " (expected: " + expected + ", got: " + actual + ")");
+            failCount++;
+        }
+    }
+
+    /**
+     * Return whether move can be played on board, without changing board.
+     */
+    private static boolean isLegal(Move move, Block board) {
+        if (move == null || move.target(board) == null) {
+            return false;
+        }
+        Block copy = board.copyBlock(board);
+        return move.apply(copy) != null;
+    }
+
+    /**
+     * Return a game on a board of depth 1 whose UR quarter is REAL_RED and
+     * the rest PACIFIC_POINT.
+     */
+    private static GameEngine oneRedQuarter(int turns) {
+        GameEngine engine = new GameEngine(1, 64, turns, 1L);
+        Block[] children = engine.getBoard().getChildren();
+        children[0].setColor(Game.REAL_RED);
+        for (int q = 1; q < 4; q++) {
+            children[q].setColor(Game.PACIFIC_POINT);
+        }
+        return engine;
+    }
+
+    private static String describe(Move move) {
+        return move == null ? "none" : move.getAction() + " " + Arrays.toString(move.getPath());
+    }
+
+    // ===== SMARTAI2 TESTS =====
+
+    private static void testSmartAI2() {
+        System.out.println("\n--- Testing SmartAI2 ---");
+
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(8);
+        boolean same = true;
+        boolean restored = true;
+        for (long seed = 1; seed <= 20; seed++) {
+            GameEngine engine = new GameEngine(4, 256, 10, seed, BoardGenerator.decay(1.0, 0.3));
+            engine.addPlayers(0, 0, 1, 0, 0, 0);
+            SmartAI2 player = (SmartAI2)engine.getPlayers().get(0);
+            long hash = engine.getBoard().getHash();
+
+            player.setPool(one);
+            String serial = describe(player.chooseMove(engine.getBoard()));
+            player.setPool(many);
+            String parallel = describe(player.chooseMove(engine.getBoard()));
+            same &= serial.equals(parallel);
+            restored &= engine.getBoard().getHash() == hash;
+        }
+        one.shutdown();
+        many.shutdown();
+        assertTrue("Move does not depend on the pool size", same);
+        assertTrue("Board is unchanged after choosing", restored);
+    }
+
+    // ===== SEARCHPLAYER TESTS =====
+
+    private static void testSearchPlayer() {
+        System.out.println("\n--- Testing SearchPlayer ---");
+
+        GameEngine engine = new GameEngine(5, 256, 10, 11L, BoardGenerator.decay(1.0, 0.2));
+        SearchPlayer search = new SearchPlayer(1, engine, engine.randomGoal(1), 200, SearchPlayer.Mode.PARANOID);
+        engine.addPlayer(search);
+        engine.addPlayer(new SearchPlayer(2, engine, engine.randomGoal(2), 200, SearchPlayer.Mode.PARANOID));
+        Block board = engine.getBoard();
+        long hash = board.getHash();
+
+        Move move = search.chooseMove(board);
+        assertEquals("Board is unchanged after a search", hash, board.getHash());
+        assertTrue("Search returns a legal move", isLegal(move, board));
+        assertTrue("Search completes at least one turn", search.getLastDepth() >= 1);
+
+        search.setBudgetMillis(1);
+        move = search.chooseMove(board);
+        assertEquals("Board is unchanged after a timeout", hash, board.getHash());
+        assertTrue("A timed out search still returns a legal move", isLegal(move, board));
+        assertTrue("A 1 ms budget stops mid-search", search.getLastDepth() < 10);
+
+        search.setBudgetMillis(5000);
+        Thread.currentThread().interrupt();
+        long start = System.nanoTime();
+        move = search.chooseMove(board);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Thread.interrupted();
+        assertEquals("Board is unchanged after an interrupt", hash, board.getHash());
+        assertTrue("An interrupted search returns a legal move", isLegal(move, board));
+        assertTrue("An interrupted search stops after the first turn", millis < 2000);
+
+        // Unsmashing turns the whole board red, the only move that grows the
+        // red blob.
+        GameEngine winning = oneRedQuarter(1);
+        SearchPlayer greedy = new SearchPlayer(1, winning, new BlobGoal(Game.REAL_RED), 500,
+                SearchPlayer.Mode.PARANOID);
+        winning.addPlayer(greedy);
+        winning.getBoard().getChildren()[1].setColor(Game.REAL_RED);
+        winning.getBoard().getChildren()[2].setColor(Game.REAL_RED);
+        move = greedy.chooseMove(winning.getBoard());
+        assertEquals("Depth 1 searches one turn", 1, greedy.getLastDepth());
+        assertEquals("Depth 1 plays the winning move", Action.UNSMASH + " []", describe(move));
+
+        // Alone, paranoid and max^n search the same tree for the same player.
+        boolean agree = true;
+        for (long seed = 1; seed <= 5; seed++) {
+            String[] chosen = new String[2];
+            for (SearchPlayer.Mode mode : SearchPlayer.Mode.values()) {
+                GameEngine solo = new GameEngine(3, 64, 2, seed, BoardGenerator.levels(1, 1, 1));
+                SearchPlayer player = new SearchPlayer(1, solo, new PerimeterGoal(Game.OLD_OLIVE), 5000, mode);
+                solo.addPlayer(player);
+                chosen[mode.ordinal()] = describe(player.chooseMove(solo.getBoard())) + " " + player.getLastDepth();
+            }
+            agree &= chosen[0].equals(chosen[1]);
+        }
+        assertTrue("PARANOID and MAXN agree in a one-player game", agree);
+    }
+
+    // ===== MCTSPLAYER TESTS =====
+
+    private static void testMCTSPlayer() {
+        System.out.println("\n--- Testing MCTSPlayer ---");
+
+        GameEngine engine = new GameEngine(4, 256, 10, 5L, BoardGenerator.decay(1.0, 0.25));
+        MCTSPlayer mcts = new MCTSPlayer(1, engine, engine.randomGoal(1), 100, MCTSPlayer.Playout.RANDOM);
+        engine.addPlayer(mcts);
+        engine.addPlayer(new SimpleAI(2, engine, engine.randomGoal(2)));
+        Block board = engine.getBoard();
+        long hash = board.getHash();
+
+        long start = System.nanoTime();
+        Move move = mcts.chooseMove(board);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals("Board is unchanged after a search", hash, board.getHash());
+        assertTrue("Search returns a legal move", isLegal(move, board));
+        assertTrue("Search keeps to its budget", millis < 100 + 500);
+        assertTrue("Search runs many iterations", mcts.getLastIterations() > 1);
+
+        mcts.setBudgetMillis(5000);
+        Thread.currentThread().interrupt();
+        start = System.nanoTime();
+        move = mcts.chooseMove(board);
+        millis = (System.nanoTime() - start) / 1_000_000;
+        Thread.interrupted();
+        assertEquals("Board is unchanged after an interrupt", hash, board.getHash());
+        assertTrue("An interrupted search returns a legal move", isLegal(move, board));
+        assertTrue("An interrupted search stops at once", millis < 2000);
+
+        // A small board, so every reply to the chosen move is explored. The
+        // opponent plays its first move that is not a (random) smash.
+        GameEngine game = new GameEngine(2, 64, 6, 3L, BoardGenerator.levels(1, 1));
+        MCTSPlayer player = new MCTSPlayer(1, game, game.randomGoal(1), 300, MCTSPlayer.Playout.RANDOM);
+        game.addPlayer(player);
+        game.addPlayer(new SimpleAI(2, game, game.randomGoal(2)));
+        game.start();
+        move = player.chooseMove(game.getBoard());
+        assertTrue("A fresh search builds a new tree", !player.wasLastTreeReused());
+        game.play(move.target(game.getBoard()), move.getAction());
+        for (Move reply : MoveGenerator.generate(game.getBoard())) {
+            if (reply.getAction() != Action.SMASH) {
+                game.play(reply.target(game.getBoard()), reply.getAction());
+                break;
+            }
+        }
+        player.chooseMove(game.getBoard());
+        assertTrue("Tree is reused after a reply it explored", player.wasLastTreeReused());
+    }
+}
@@ -50,13 +50,13 @@ public class BlockyMain {
 	}
 
 	public static void launchGame(int numHuman, int numSmartAI, int numSmartAI2,
-		int numSimpleAI, int levels, int turns) {
+		int numSimpleAI, int numMCTS, int numSearch, int levels, int turns) {
 
 		max_depth = levels;
 		initControls();
 
 		game = new Game(levels, numHuman, numSmartAI,
-			numSmartAI2, numSimpleAI, turns);
+			numSmartAI2, numSimpleAI, numMCTS, numSearch, turns);
 
 		while (window == null) {
 			try { Thread.sleep(200); } catch (InterruptedException ignored) {}
@@ -99,8 +99,7 @@ public class BlockyMain {
 
 	public static void updatePlayers() {
 		GameView.drawPlayers(
-			game.players,
-			game.board,
+			game.getPlayers(),
 			game.getPlayerTurn(),
 			controlPanel,
 			new Point(25, 130)
@@ -161,7 +160,7 @@ public class BlockyMain {
 		controlPanel.add(btn);
 		btn.addActionListener(e -> {
 			if (!text.equals("Undo") && !text.equals("Unsmash")) {
-				if (game.activeBlock == null) {
+				if (game.getActiveBlock() == null) {
 					updateStatus("Select a block first!", false, MELON_MAMBO);
 					return;
 				}
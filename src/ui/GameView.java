@@ -12,7 +12,6 @@ import java.util.List;
 
 import javax.swing.*;
 
-import game.Block;
 import game.Game;
 import players.Player;
 
@@ -24,12 +23,11 @@ public class GameView {
 	 * Draws the player information panel.
 	 *
 	 * @param players    The list of players in the game.
-	 * @param board      The current game board (for scoring).
 	 * @param playerTurn The index of the current player's turn (0-based).
 	 * @param controls   The parent panel to add the player info to.
 	 * @param position   The position to place the panel.
 	 */
-	public static void drawPlayers(List<Player> players, Block board, int playerTurn, JPanel controls, Point position) {
+	public static void drawPlayers(List<Player> players, int playerTurn, JPanel controls, Point position) {
 		// Remove the old panel if it exists to prevent stacking
 		if (playerPanel != null) {
 			controls.remove(playerPanel);
@@ -122,7 +120,7 @@ public class GameView {
 			gbc.anchor = GridBagConstraints.EAST;
 			gbc.weightx = 0.0;
 			gbc.fill = GridBagConstraints.HORIZONTAL;
-			int score = (p.getGoal() != null && board != null) ? p.getGoal().score(board) : 0;
+			int score = p.getGoal() != null ? p.getScore() : 0;
 			JLabel pScore = new JLabel("" + score);
 			pScore.setForeground(textColor);
 			pScore.setOpaque(true);
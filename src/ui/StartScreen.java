@@ -60,9 +60,17 @@ public class StartScreen {
 		ai3Label.setFont(labelFont);
 		gbc.gridy = 6; p.add(ai3Label, gbc);
 
+		JLabel mctsLabel = new JLabel("MCTS AI");
+		mctsLabel.setFont(labelFont);
+		gbc.gridy = 7; p.add(mctsLabel, gbc);
+
+		JLabel searchLabel = new JLabel("Search AI");
+		searchLabel.setFont(labelFont);
+		gbc.gridy = 8; p.add(searchLabel, gbc);
+
 		JLabel turnsLabel = new JLabel("Turns");
 		turnsLabel.setFont(labelFont);
-		gbc.gridy = 7; p.add(turnsLabel, gbc);
+		gbc.gridy = 9; p.add(turnsLabel, gbc);
 
 		SpinnerNumberModel levelModel = new SpinnerNumberModel(3, 2, 6, 1);
 		JSpinner levels = new JSpinner(levelModel);
@@ -75,22 +83,29 @@ public class StartScreen {
 		SpinnerNumberModel smartAIModel = new SpinnerNumberModel(0, 0, 4, 1);
 		SpinnerNumberModel smartAI2Model = new SpinnerNumberModel(0, 0, 4, 1);
 		SpinnerNumberModel simpleAIModel = new SpinnerNumberModel(0, 0, 4, 1);
+		SpinnerNumberModel mctsModel = new SpinnerNumberModel(0, 0, 4, 1);
+		SpinnerNumberModel searchModel = new SpinnerNumberModel(0, 0, 4, 1);
 
 		JSpinner human = new JSpinner(humanModel);
 		JSpinner smartAI = new JSpinner(smartAIModel);
 		JSpinner smartAI2 = new JSpinner(smartAI2Model);
 		JSpinner simpleAI = new JSpinner(simpleAIModel);
+		JSpinner mcts = new JSpinner(mctsModel);
+		JSpinner search = new JSpinner(searchModel);
 
 		human.setFont(new Font("Arial", Font.PLAIN, 18));
 		smartAI.setFont(new Font("Arial", Font.PLAIN, 18));
 		smartAI2.setFont(new Font("Arial", Font.PLAIN, 18));
 		simpleAI.setFont(new Font("Arial", Font.PLAIN, 18));
+		mcts.setFont(new Font("Arial", Font.PLAIN, 18));
+		search.setFont(new Font("Arial", Font.PLAIN, 18));
 
 		ChangeListener playerLimiter = new ChangeListener() {
 			@Override
 			public void stateChanged(ChangeEvent e) {
 				int total = (int) human.getValue() + (int) smartAI.getValue()
-					+ (int) smartAI2.getValue() + (int) simpleAI.getValue();
+					+ (int) smartAI2.getValue() + (int) simpleAI.getValue() + (int) mcts.getValue()
+					+ (int) search.getValue();
 
 				if (total > MAX_PLAYERS) {
 					((JSpinner) e.getSource()).setValue(((int) ((JSpinner) e.getSource()).getValue()) - 1);
@@ -102,16 +117,20 @@ public class StartScreen {
 		smartAI.addChangeListener(playerLimiter);
 		smartAI2.addChangeListener(playerLimiter);
 		simpleAI.addChangeListener(playerLimiter);
+		mcts.addChangeListener(playerLimiter);
+		search.addChangeListener(playerLimiter);
 
 		gbc.gridx = 2; gbc.gridy = 3; p.add(human, gbc);
 		gbc.gridy = 4; p.add(smartAI, gbc);
 		gbc.gridy = 5; p.add(smartAI2, gbc);
 		gbc.gridy = 6; p.add(simpleAI, gbc);
+		gbc.gridy = 7; p.add(mcts, gbc);
+		gbc.gridy = 8; p.add(search, gbc);
 
 		SpinnerNumberModel turnsModel = new SpinnerNumberModel(20, 8, 60, 1);
 		JSpinner turns = new JSpinner(turnsModel);
 		turns.setFont(new Font("Arial", Font.PLAIN, 20));
-		gbc.gridy = 7; p.add(turns, gbc);
+		gbc.gridy = 9; p.add(turns, gbc);
 
 		JButton start = new JButton("Start");
 		start.setForeground(Color.BLUE);
@@ -124,6 +143,8 @@ public class StartScreen {
 					(int) smartAI.getValue(),
 					(int) smartAI2.getValue(),
 					(int) simpleAI.getValue(),
+					(int) mcts.getValue(),
+					(int) search.getValue(),
 					(int) levels.getValue(),
 					(int) turns.getValue()
 				)).start();
@@ -131,7 +152,7 @@ public class StartScreen {
 			}
 		});
 
-		gbc.gridx = 2; gbc.gridy = 8; gbc.gridwidth = 2;
+		gbc.gridx = 2; gbc.gridy = 10; gbc.gridwidth = 2;
 		p.add(start, gbc);
 
 		ss.add(p);